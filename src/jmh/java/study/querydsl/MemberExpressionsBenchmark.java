@@ -0,0 +1,43 @@
+package study.querydsl;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.support.MemberExpressions;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 검색 쿼리 조립 비용 (JPQL 직렬화/DB 조회 X)
+ * -prof gc 로 B/op 비교
+ *
+ * inline : 쿼리마다 new QMemberTeamDto(...) (생성자 조회 포함)
+ * prebuilt : MemberExpressions.MEMBER_TEAM_DTO 재사용
+ *
+ * ./gradlew jmh -Pjmh.includes=MemberExpressionsBenchmark
+ */
+@State(Scope.Benchmark)
+public class MemberExpressionsBenchmark {
+
+    @Benchmark
+    public JPAQuery<MemberTeamDto> inline() {
+        return new JPAQuery<>()
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.username.eq("member1"));
+    }
+
+    @Benchmark
+    public JPAQuery<MemberTeamDto> prebuilt() {
+        return new JPAQuery<>()
+                .select(MemberExpressions.MEMBER_TEAM_DTO)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.username.eq("member1"));
+    }
+}
@@ -0,0 +1,86 @@
+package study.querydsl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import study.querydsl.controller.MemberPageHttpMessageConverter;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 회원 검색 페이지 응답 직렬화 비용 (DB 조회 X)
+ *
+ * jackson : 기존 방식, ObjectMapper 로 PageImpl 직렬화(pageable/sort 포함)
+ * compact* : MemberPageHttpMessageConverter 고정 스키마 (json, cbor, smile)
+ * 응답 스트림처럼 재사용하는 버퍼에 기록(버퍼 확장/복사 비용 제외), 크기는 setup 에서 출력
+ *
+ * ./gradlew jmh -Pjmh.includes=MemberPageSerializationBenchmark
+ */
+@State(Scope.Benchmark)
+public class MemberPageSerializationBenchmark {
+    @Param({"20", "200"})
+    int pageSize;
+
+    ObjectMapper objectMapper;
+    MemberPageHttpMessageConverter converter;
+    Page<MemberTeamDto> page;
+    ByteArrayOutputStream out;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        converter = new MemberPageHttpMessageConverter();
+        out = new ByteArrayOutputStream(64 * 1024);
+
+        List<MemberTeamDto> content = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            content.add(new MemberTeamDto((long) i, "member" + i, i % 100,
+                    i % 10 == 0 ? null : (long) (i % 4), i % 10 == 0 ? null : "team" + (i % 4)));
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize, Sort.by("username")), 100_000);
+
+        System.out.printf("%nsize(bytes) pageSize=%d jackson=%d json=%d cbor=%d smile=%d%n", pageSize,
+                jackson(), compactJson(), compactCbor(), compactSmile());
+    }
+
+    @Benchmark
+    public int jackson() throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, page);
+        return out.size();
+    }
+
+    @Benchmark
+    public int compactJson() throws IOException {
+        return compact(MemberPageHttpMessageConverter.JSON);
+    }
+
+    @Benchmark
+    public int compactCbor() throws IOException {
+        return compact(MemberPageHttpMessageConverter.CBOR);
+    }
+
+    @Benchmark
+    public int compactSmile() throws IOException {
+        return compact(MemberPageHttpMessageConverter.SMILE);
+    }
+
+    private int compact(MediaType mediaType) throws IOException {
+        out.reset();
+        converter.writePage(page, mediaType, out);
+        return out.size();
+    }
+}
@@ -0,0 +1,116 @@
+package study.querydsl;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparablePath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
+import org.springframework.data.jpa.repository.support.Querydsl;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.support.EntityMetadata;
+import study.querydsl.repository.support.QuerydslMetadataRegistry;
+
+import javax.persistence.EntityManager;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 요청당 Querydsl 메타데이터/정렬 준비 비용 (DB 조회 X)
+ *
+ * uncached* : 이전 방식
+ * > metadata : Querydsl4RepositorySupport.setEntityManager 가 하던 JpaEntityInformation/EntityPath/PathBuilder 생성
+ * > sort : searchPageComplex 의 정렬마다 new PathBuilder, Querydsl4RepositorySupport 의 Querydsl.applyPagination
+ * cached* : QuerydslMetadataRegistry/EntityMetadata
+ *
+ * ./gradlew jmh -Pjmh.includes=QuerydslMetadataBenchmark
+ */
+@State(Scope.Benchmark)
+public class QuerydslMetadataBenchmark {
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+    QuerydslMetadataRegistry registry;
+    Querydsl querydsl;
+    Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--logging.file.name=build/jmh/metadata.log",
+                        "--logging.pattern.console=");
+        em = context.getBean(EntityManager.class);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        registry = context.getBean(QuerydslMetadataRegistry.class);
+        querydsl = new Querydsl(em, new PathBuilder<>(Member.class, member.getMetadata()));
+        pageable = PageRequest.of(0, 20, Sort.by(Sort.Order.desc("age"), Sort.Order.asc("username")));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ComparablePath<?> uncachedMetadata() {
+        JpaEntityInformation<Member, ?> entityInformation = JpaEntityInformationSupport.getEntityInformation(Member.class, em);
+        EntityPath<Member> path = SimpleEntityPathResolver.INSTANCE.createPath(entityInformation.getJavaType());
+        PathBuilder<Member> builder = new PathBuilder<>(path.getType(), path.getMetadata());
+        new Querydsl(em, builder);
+        return builder.getComparable(entityInformation.getIdAttribute().getName(), Long.class);
+    }
+
+    @Benchmark
+    public ComparablePath<?> cachedMetadata() {
+        return registry.get(Member.class).getIdPath();
+    }
+
+    @Benchmark
+    public JPAQuery<?> uncachedSort() {
+        JPAQuery<?> query = query();
+        for (Sort.Order o : pageable.getSort()) {
+            PathBuilder pathBuilder = new PathBuilder(member.getType(), member.getMetadata());
+            query.orderBy(new OrderSpecifier<>(o.isAscending() ? Order.ASC : Order.DESC, pathBuilder.get(o.getProperty())));
+        }
+        return query;
+    }
+
+    @Benchmark
+    public JPAQuery<?> uncachedQuerydslSort() {
+        return (JPAQuery<?>) querydsl.applySorting(pageable.getSort(), query());
+    }
+
+    @Benchmark
+    public JPAQuery<?> cachedSort() {
+        EntityMetadata<Member> metadata = registry.get(Member.class);
+        return query().orderBy(metadata.orderSpecifiers(pageable.getSort()));
+    }
+
+    private JPAQuery<?> query() {
+        return queryFactory
+                .select(member.id, member.username, member.age, team.id, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.age.goe(10));
+    }
+}
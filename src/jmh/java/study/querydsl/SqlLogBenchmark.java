@@ -0,0 +1,101 @@
+package study.querydsl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL 로그 설정별 조회 처리량
+ *
+ * LEGACY : 이전 기본값(org.hibernate.SQL debug + format_sql + use_sql_comments + p6spy 기본 로그)
+ * OFF / SAMPLED / ALL_ASYNC : SqlLogListener 모드
+ *
+ * 로그는 build/jmh/sql.log 파일로만 출력(콘솔 X)
+ * ./gradlew jmh -Pjmh.includes=SqlLogBenchmark
+ */
+@State(Scope.Benchmark)
+public class SqlLogBenchmark {
+    @Param({"LEGACY", "OFF", "SAMPLED", "ALL_ASYNC"})
+    String logging;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepository memberJpaRepository;
+    TransactionTemplate readOnly;
+    MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setup() {
+//        application.yml 보다 우선하도록 커맨드라인 인자로 전달
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--logging.file.name=build/jmh/sql.log",
+                "--logging.pattern.console="));
+        switch (logging) {
+            case "LEGACY":
+                args.addAll(List.of(
+                        "--logging.level.org.hibernate.SQL=debug",
+                        "--spring.jpa.properties.hibernate.format_sql=true",
+                        "--spring.jpa.properties.hibernate.use_sql_comments=true",
+                        "--decorator.datasource.p6spy.enable-logging=true",
+                        "--member.sql-log.mode=OFF"));
+                break;
+            case "SAMPLED":
+                args.add("--member.sql-log.mode=SAMPLED");
+                break;
+            case "ALL_ASYNC":
+                args.addAll(List.of("--member.sql-log.mode=ALL", "--member.sql-log.async=true"));
+                break;
+            default:
+                args.add("--member.sql-log.mode=OFF");
+        }
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        EntityManager em = context.getBean(EntityManager.class);
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            Team team = new Team("benchTeam");
+            em.persist(team);
+            for (int i = 0; i < 100; i++) {
+                em.persist(new Member("benchMember" + i, i, team));
+            }
+        });
+
+        condition = new MemberSearchCondition();
+        condition.setTeamName("benchTeam");
+        condition.setAgeGoe(90);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> search() {
+        return readOnly.execute(status -> memberJpaRepository.search(condition));
+    }
+}
@@ -1,15 +1,18 @@
 package study.querydsl;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberStatelessRepository;
 
-import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
 
 @Profile("local")
 @Component
@@ -17,28 +20,33 @@ import javax.persistence.PersistenceContext;
 public class InitMember {
     private final InitMemberService initMemberService;
 
-    @PostConstruct
+//    기동 완료 후 실행(지연 초기화에서도 동작), 데이터가 있으면(fast 프로파일 스키마 유지) 건너뜀
+    @EventListener(ApplicationReadyEvent.class)
     public void init(){
         initMemberService.init();
     }
 
     @Component
+    @RequiredArgsConstructor
     static class InitMemberService{
         @PersistenceContext
         EntityManager em;
+        private final MemberStatelessRepository memberStatelessRepository;
 
-        @Transactional
+//        영속성 컨텍스트 없이 insert(MemberStatelessRepository), 자체 트랜잭션에서 커밋
         public void init(){
+            if (!em.createQuery("select t.id from Team t", Long.class).setMaxResults(1).getResultList().isEmpty()) {
+                return;
+            }
             Team teamA = new Team("teamA");
             Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
+            List<Object> entities = new ArrayList<>(List.of(teamA, teamB));
 
             for(int i=0;i<100;i++){
                 Team selectedTeam = i%2 ==0 ? teamA : teamB;
-                em.persist(new Member("member"+i,i,selectedTeam));
+                entities.add(new Member("member"+i,i,selectedTeam));
             }
-
+            memberStatelessRepository.insertAll(entities);
         }
     }
 }
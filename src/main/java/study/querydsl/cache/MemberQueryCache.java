@@ -0,0 +1,413 @@
+package study.querydsl.cache;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.ChangeBatch;
+import study.querydsl.event.DataVersion;
+import study.querydsl.event.MemberChange;
+import study.querydsl.event.MemberState;
+import study.querydsl.event.RebuildScheduler;
+import study.querydsl.event.TeamChange;
+import study.querydsl.repository.support.MemberExpressions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 조회 캐시 (member.cache.enabled=true)
+ *
+ * member/team 전체를 컬럼 스냅샷(MemberRow)으로 메모리에 보관하고
+ * id, username, team 인덱스로 단건 조회와 MemberSearchCondition 검색을 DB 없이 처리
+ *
+ * 변경은 커밋 후 ChangeBatch 로 반영, 적재 전이나 캐시 미스는 DB 조회(read-through)
+ * 벌크연산 후에는 백그라운드(RebuildScheduler)에서 새 스냅샷을 적재해서 통째로 교체
+ * > 적재 중에는 이전 스냅샷으로 응답, 적재 중 도착한 ChangeBatch 는 새 스냅샷에 다시 반영
+ * > 영속성 컨텍스트 밖의 DTO 이므로 수정용 조회에는 사용 X
+ *
+ * appliedVersion : 빠짐없이 반영한 DataVersion (적재 직전에 읽은 버전 + 이후 연속으로 받은 ChangeBatch, 벌크연산 제외)
+ * > DB 의 DataVersion 과 같을 때만 "캐시에 없음 = DB 에 없음"(isComplete)
+ * > 앞서면(다른 인스턴스, 직접 SQL, 커밋 후 ChangeBatch 발행 전, 재적재 전 벌크연산) DB 조회, RELOAD_GRACE 넘게 계속되면 재적재
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "member.cache.enabled", havingValue = "true")
+public class MemberQueryCache {
+    static final long RELOAD_GRACE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyNewTransaction;
+    private final RebuildScheduler rebuildScheduler;
+    private final DataVersion dataVersion;
+    private final Runnable loadTask = this::load;
+    private final Object loadLock = new Object();
+
+//    첫 적재 전에는 null
+    private volatile Snapshot snapshot;
+//    적재 중 도착한 ChangeBatch (적재 중이 아니면 null)
+    private List<ChangeBatch> replay;
+//    스냅샷 변경 횟수 > read-through 조회 중 바뀌었으면 적재 X
+    private final AtomicLong modifications = new AtomicLong();
+    private volatile long appliedVersion;
+//    appliedVersion 보다 앞서 도착한 ChangeBatch 버전 (커밋 후 발행 순서는 버전 순서와 다를 수 있음)
+    private final Set<Long> appliedAhead = new HashSet<>();
+//    DB 버전이 appliedVersion 보다 앞선 것을 처음 본 시각(0 이면 따라잡은 상태)
+    private volatile long behindSince;
+
+    public MemberQueryCache(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager,
+                            RebuildScheduler rebuildScheduler, DataVersion dataVersion) {
+        this.queryFactory = queryFactory;
+        this.rebuildScheduler = rebuildScheduler;
+        this.dataVersion = dataVersion;
+        this.readOnlyNewTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyNewTransaction.setReadOnly(true);
+        this.readOnlyNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 새 스냅샷 적재 후 교체
+     * 조회는 락 밖에서(기존 스냅샷은 계속 응답), 교체는 ChangeBatch 반영과 같은 락 안에서
+     * 조회 전에 읽은 DataVersion 까지는 조회 결과에 모두 보임 > 교체 후 appliedVersion
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        synchronized (loadLock) {
+            synchronized (this) {
+                replay = new ArrayList<>();
+            }
+            long versionSeen = dataVersion.current();
+            Snapshot loading = new Snapshot();
+            try {
+                readOnlyNewTransaction.executeWithoutResult(status -> {
+                    for (Tuple tuple : queryFactory.select(team.id, team.name).from(team).fetch()) {
+                        loading.teams.put(tuple.get(team.id), tuple.get(team.name));
+                    }
+                    for (MemberRow row : fetchRows(null)) {
+                        loading.put(row);
+                    }
+                });
+                synchronized (this) {
+                    replay.forEach(loading::apply);
+                    snapshot = loading;
+                    modifications.incrementAndGet();
+                    if (versionSeen > appliedVersion) {
+                        appliedVersion = versionSeen;
+                        advanceAppliedVersion();
+                    }
+                }
+            } finally {
+                synchronized (this) {
+                    replay = null;
+                }
+            }
+            log.info("member cache loaded. members={}, teams={}", loading.members.size(), loading.teams.size());
+        }
+    }
+
+    public Optional<MemberTeamDto> findById(Long id) {
+        Snapshot snapshot = this.snapshot;
+        MemberRow row = snapshot != null ? snapshot.members.get(id) : null;
+        if (row == null) {
+            return readThrough(member.id.eq(id)).stream().findFirst();
+        }
+        return Optional.of(snapshot.toDto(row));
+    }
+
+    public List<MemberTeamDto> findByUsername(String username) {
+        Snapshot snapshot = this.snapshot;
+        Set<Long> ids = snapshot != null ? snapshot.usernameIndex.get(username) : null;
+        if (ids == null || ids.isEmpty()) {
+            return readThrough(member.username.eq(username));
+        }
+        return snapshot.toDtos(snapshot.rows(ids));
+    }
+
+    /**
+     * 캐시 검색
+     * username/teamName 인덱스로 후보를 줄이고 나머지 조건은 메모리에서 평가
+     * 첫 적재 전에는 DB 조회
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        Snapshot snapshot = this.snapshot;
+        if (snapshot == null) {
+            return fetchDtos(null).stream()
+                    .filter(dto -> matches(dto, condition))
+                    .collect(Collectors.toList());
+        }
+
+        Collection<MemberRow> candidates;
+        if (hasText(condition.getUsername())) {
+            candidates = snapshot.rows(snapshot.usernameIndex.getOrDefault(condition.getUsername(), Collections.emptySet()));
+        } else if (hasText(condition.getTeamName())) {
+            candidates = new ArrayList<>();
+            snapshot.teams.forEach((teamId, name) -> {
+                if (condition.getTeamName().equals(name)) {
+                    candidates.addAll(snapshot.rows(snapshot.teamIndex.getOrDefault(teamId, Collections.emptySet())));
+                }
+            });
+        } else {
+            candidates = snapshot.members.values();
+        }
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        for (MemberRow row : candidates) {
+            MemberTeamDto dto = snapshot.toDto(row);
+            if (matches(dto, condition)) {
+                result.add(dto);
+            }
+        }
+        result.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+        return result;
+    }
+
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    /**
+     * 커밋된 회원이 캐시에 없음을 믿을 수 있는지 (적재됨 + DB 의 DataVersion 까지 모두 반영)
+     */
+    public boolean isComplete() {
+        if (snapshot == null) {
+            return false;
+        }
+        if (dataVersion.current() <= appliedVersion) {
+            behindSince = 0;
+            return true;
+        }
+        long now = System.nanoTime();
+        long since = behindSince;
+        if (since == 0) {
+            behindSince = now;
+        } else if (now - since > RELOAD_GRACE_NANOS) {
+            behindSince = now;
+            rebuildScheduler.submit(loadTask);
+        }
+        return false;
+    }
+
+    public boolean containsId(Long id) {
+        Snapshot snapshot = this.snapshot;
+        return snapshot != null && id != null && snapshot.members.containsKey(id);
+    }
+
+    public boolean containsUsername(String username) {
+        Snapshot snapshot = this.snapshot;
+        if (snapshot == null || username == null) {
+            return false;
+        }
+        Set<Long> ids = snapshot.usernameIndex.get(username);
+        return ids != null && !ids.isEmpty();
+    }
+
+    /**
+     * 커밋된 변경분 반영
+     */
+    @EventListener
+    public synchronized void onChanges(ChangeBatch batch) {
+        if (batch.isBulkChanged(Member.class) || batch.isBulkChanged(Team.class)) {
+            rebuildScheduler.submit(loadTask);
+            return;
+        }
+        if (replay != null) {
+            replay.add(batch);
+        }
+        if (snapshot != null) {
+            snapshot.apply(batch);
+        }
+        modifications.incrementAndGet();
+        if (batch.getDataVersion() > appliedVersion) {
+            appliedAhead.add(batch.getDataVersion());
+            advanceAppliedVersion();
+        }
+    }
+
+    private synchronized void advanceAppliedVersion() {
+        appliedAhead.removeIf(version -> version <= appliedVersion);
+        long next = appliedVersion;
+        while (appliedAhead.remove(next + 1)) {
+            next++;
+        }
+        appliedVersion = next;
+    }
+
+    /**
+     * 캐시 미스 DB 조회
+     * 트랜잭션 밖에서 읽은 커밋된 데이터만 캐시에 적재(롤백될 수 있는 데이터 X)
+     * 조회 중 스냅샷이 바뀌었으면(ChangeBatch 반영, 교체) 적재 X > 이미 반영된 변경을 이전 값으로 덮지 않음
+     */
+    private List<MemberTeamDto> readThrough(Predicate predicate) {
+        long seen = modifications.get();
+        List<MemberTeamDto> result = fetchDtos(predicate);
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            synchronized (this) {
+                Snapshot snapshot = this.snapshot;
+                if (snapshot != null && modifications.get() == seen) {
+                    for (MemberTeamDto dto : result) {
+                        snapshot.put(MemberRow.of(dto));
+                        if (dto.getTeamId() != null && dto.getName() != null) {
+                            snapshot.teams.putIfAbsent(dto.getTeamId(), dto.getName());
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<MemberRow> fetchRows(Predicate predicate) {
+        List<Tuple> result = queryFactory
+                .select(member.id, member.username, member.age, member.team.id)
+                .from(member)
+                .where(predicate)
+                .fetch();
+        List<MemberRow> rows = new ArrayList<>(result.size());
+        for (Tuple tuple : result) {
+            rows.add(new MemberRow(tuple.get(member.id), tuple.get(member.username),
+                    tuple.get(member.age), tuple.get(member.team.id)));
+        }
+        return rows;
+    }
+
+    private List<MemberTeamDto> fetchDtos(Predicate predicate) {
+        return queryFactory
+                .select(MemberExpressions.MEMBER_TEAM_DTO)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(predicate)
+                .orderBy(member.id.asc())
+                .fetch();
+    }
+
+    private static boolean matches(MemberTeamDto dto, MemberSearchCondition condition) {
+        String username = dto.getUsername();
+        if (hasText(condition.getUsername()) && !condition.getUsername().equals(username)) {
+            return false;
+        }
+        if (hasText(condition.getUsernameStartsWith()) && (username == null || !username.startsWith(condition.getUsernameStartsWith()))) {
+            return false;
+        }
+        if (hasText(condition.getUsernameContains()) && (username == null || !username.contains(condition.getUsernameContains()))) {
+            return false;
+        }
+        if (hasText(condition.getTeamName()) && !Objects.equals(condition.getTeamName(), dto.getName())) {
+            return false;
+        }
+        if (condition.getAgeGoe() != null && dto.getAge() < condition.getAgeGoe()) {
+            return false;
+        }
+        return condition.getAgeLoe() == null || dto.getAge() <= condition.getAgeLoe();
+    }
+
+    /**
+     * 스냅샷 하나 (member, team, 인덱스)
+     * 변경은 MemberQueryCache 락 안에서만, 조회는 락 없이
+     */
+    private static class Snapshot {
+        final Map<Long, MemberRow> members = new ConcurrentHashMap<>();
+        final Map<Long, String> teams = new ConcurrentHashMap<>();
+        final Map<String, Set<Long>> usernameIndex = new ConcurrentHashMap<>();
+        final Map<Long, Set<Long>> teamIndex = new ConcurrentHashMap<>();
+
+        void apply(ChangeBatch batch) {
+            for (TeamChange change : batch.getTeamChanges()) {
+                if (change.getAfter() == null) {
+                    teams.remove(change.getId());
+                } else if (change.getAfter().getName() != null) {
+                    teams.put(change.getId(), change.getAfter().getName());
+                }
+            }
+            for (MemberChange change : batch.getMemberChanges()) {
+                MemberState after = change.getAfter();
+                if (after == null) {
+                    evict(change.getId());
+                } else {
+                    put(new MemberRow(change.getId(), after.getUsername(), after.getAge(), after.getTeamId()));
+                }
+            }
+        }
+
+        void put(MemberRow row) {
+            evict(row.getId());
+            members.put(row.getId(), row);
+            if (row.getUsername() != null) {
+                usernameIndex.computeIfAbsent(row.getUsername(), k -> ConcurrentHashMap.newKeySet()).add(row.getId());
+            }
+            if (row.getTeamId() != null) {
+                teamIndex.computeIfAbsent(row.getTeamId(), k -> ConcurrentHashMap.newKeySet()).add(row.getId());
+            }
+        }
+
+        void evict(Long id) {
+            MemberRow old = members.remove(id);
+            if (old == null) {
+                return;
+            }
+            if (old.getUsername() != null) {
+                Set<Long> ids = usernameIndex.get(old.getUsername());
+                if (ids != null) {
+                    ids.remove(id);
+                }
+            }
+            if (old.getTeamId() != null) {
+                Set<Long> ids = teamIndex.get(old.getTeamId());
+                if (ids != null) {
+                    ids.remove(id);
+                }
+            }
+        }
+
+        List<MemberRow> rows(Set<Long> ids) {
+            List<MemberRow> rows = new ArrayList<>(ids.size());
+            for (Long id : new HashSet<>(ids)) {
+                MemberRow row = members.get(id);
+                if (row != null) {
+                    rows.add(row);
+                }
+            }
+            return rows;
+        }
+
+        List<MemberTeamDto> toDtos(List<MemberRow> rows) {
+            List<MemberTeamDto> result = new ArrayList<>(rows.size());
+            for (MemberRow row : rows) {
+                result.add(toDto(row));
+            }
+            result.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+            return result;
+        }
+
+        MemberTeamDto toDto(MemberRow row) {
+            return row.toDto(row.getTeamId() != null ? teams.get(row.getTeamId()) : null);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.cache;
+
+import lombok.Value;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * 캐시에 보관하는 회원 스냅샷
+ * 엔티티 그래프/프록시 없이 조회에 필요한 컬럼만 보관
+ */
+@Value
+class MemberRow {
+    long id;
+    String username;
+    int age;
+    Long teamId;
+
+    static MemberRow of(MemberTeamDto dto) {
+        return new MemberRow(dto.getMemberId(), dto.getUsername(), dto.getAge(), dto.getTeamId());
+    }
+
+    MemberTeamDto toDto(String teamName) {
+        return new MemberTeamDto(id, username, age, teamId, teamName);
+    }
+}
@@ -1,38 +1,65 @@
 package study.querydsl.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import study.querydsl.cache.MemberQueryCache;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
-import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.event.DataVersion;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import study.querydsl.repository.MemberReactiveRepository;
 import study.querydsl.repository.MemberRepository;
 import study.querydsl.repository.MemberTestRepository;
+import study.querydsl.search.MemberSearchCoalescer;
 
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
-    private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
     private final MemberTestRepository memberTestRepository;
+    private final MemberReactiveRepository memberReactiveRepository;
+    private final MemberSearchCoalescer memberSearchCoalescer;
+    private final ObjectProvider<MemberQueryCache> memberQueryCache;
+    private final DataVersion dataVersion;
 
+//    member.cache.enabled=true 면 메모리 캐시에서 조회
+//    아니면 같은 조건의 동시 요청을 쿼리 1번으로 합침
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition){
-        return memberJpaRepository.search(condition);
+        MemberQueryCache cache = memberQueryCache.getIfAvailable();
+        if (cache != null) {
+            return cache.search(condition);
+        }
+        return memberSearchCoalescer.search(condition);
     }
 
+//    데이터 버전이 그대로면 304(조회/직렬화 X)
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable){
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable, ServletWebRequest request){
+        if (notModified(request)) {
+            return null;
+        }
         return memberRepository.searchPageSimple(condition, pageable);
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable){
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable, ServletWebRequest request){
+        if (notModified(request)) {
+            return null;
+        }
         return memberRepository.searchPageComplex(condition, pageable);
     }
 
@@ -40,4 +67,40 @@ public class MemberController {
     public Page<MemberTeamDto> searchMemberV4(MemberSearchCondition condition, Pageable pageable){
         return memberTestRepository.applyPagination2(condition, pageable);
     }
+
+//    v3 와 같은 조회, 응답은 고정 스키마(MemberPageHttpMessageConverter, json/cbor/smile)
+    @GetMapping(value = "/v5/members", produces = {MemberPageHttpMessageConverter.JSON_VALUE,
+            MemberPageHttpMessageConverter.CBOR_VALUE, MemberPageHttpMessageConverter.SMILE_VALUE})
+    public Page<MemberTeamDto> searchMemberV5(MemberSearchCondition condition, Pageable pageable, ServletWebRequest request){
+        if (notModified(request)) {
+            return null;
+        }
+        return memberRepository.searchPageComplex(condition, pageable);
+    }
+
+//    요청 스레드는 바로 반환, 조회는 member-search 스케줄러에서 실행
+//    ndjson 은 한 줄(회원)씩 스트리밍
+    @GetMapping(value = "/reactive/members", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MemberTeamDto> searchMemberReactive(MemberSearchCondition condition){
+        return memberReactiveRepository.search(condition);
+    }
+
+    @GetMapping("/reactive/members/page")
+    public Mono<Page<MemberTeamDto>> searchMemberReactivePage(MemberSearchCondition condition, Pageable pageable){
+        return memberReactiveRepository.searchPage(condition, pageable);
+    }
+
+    /**
+     * If-None-Match 확인, 응답에 ETag 설정
+     * ETag = DB 데이터 버전(DataVersion) + 표현(Accept) > 다른 인스턴스/벌크연산의 커밋도 버전을 올림
+     * 버전은 조회 전에 읽음 > 조회 중 커밋된 변경은 다음 요청에서 반영
+     * Last-Modified 는 초 단위라 같은 초의 변경을 구분 못함 > 보내지 않음
+     */
+    private boolean notModified(ServletWebRequest request) {
+        long version = dataVersion.current();
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        request.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        String variant = Integer.toHexString(Objects.hashCode(request.getHeader(HttpHeaders.ACCEPT)));
+        return request.checkNotModified("\"" + version + "-" + variant + "\"");
+    }
 }
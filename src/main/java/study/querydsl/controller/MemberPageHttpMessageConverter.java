@@ -0,0 +1,166 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Page<MemberTeamDto> 응답 전용 직렬화
+ *
+ * PageImpl 을 Jackson 리플렉션으로 직렬화하면 pageable/sort 내부 필드까지 모두 출력
+ * > 고정 스키마를 JsonGenerator 로 바로 기록(트리/리플렉션 X), 필드 이름은 미리 인코딩(SerializedString)
+ * {"content":[{"memberId","username","age","teamId","name"}...],"page":{"number","size","totalElements","totalPages"}}
+ *
+ * 전용 미디어 타입을 요청한 경우만 적용(opt-in), application/json 등 기존 응답은 Jackson 변환기 그대로
+ * > application/vnd.member-page+json, application/vnd.member-page+cbor, application/vnd.member-page+smile
+ * > /v5/members 는 이 타입만 produce, /v2~v4 는 Accept 에 vnd.member-page+json 을 준 경우만
+ * 반환 타입이 Page<MemberTeamDto> 로 선언된 핸들러에만 적용
+ */
+public class MemberPageHttpMessageConverter extends AbstractGenericHttpMessageConverter<Page<MemberTeamDto>> {
+    public static final String JSON_VALUE = "application/vnd.member-page+json";
+    public static final String CBOR_VALUE = "application/vnd.member-page+cbor";
+    public static final String SMILE_VALUE = "application/vnd.member-page+smile";
+    public static final MediaType JSON = MediaType.parseMediaType(JSON_VALUE);
+    public static final MediaType CBOR = MediaType.parseMediaType(CBOR_VALUE);
+    public static final MediaType SMILE = MediaType.parseMediaType(SMILE_VALUE);
+
+    private static final SerializableString CONTENT = new SerializedString("content");
+    private static final SerializableString MEMBER_ID = new SerializedString("memberId");
+    private static final SerializableString USERNAME = new SerializedString("username");
+    private static final SerializableString AGE = new SerializedString("age");
+    private static final SerializableString TEAM_ID = new SerializedString("teamId");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString PAGE = new SerializedString("page");
+    private static final SerializableString NUMBER = new SerializedString("number");
+    private static final SerializableString SIZE = new SerializedString("size");
+    private static final SerializableString TOTAL_ELEMENTS = new SerializedString("totalElements");
+    private static final SerializableString TOTAL_PAGES = new SerializedString("totalPages");
+
+    private final JsonFactory json = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private final JsonFactory cbor = new CBORFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private final JsonFactory smile = new SmileFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    public MemberPageHttpMessageConverter() {
+        super(JSON, CBOR, SMILE);
+    }
+
+    /**
+     * 협상된 미디어 타입이 전용 타입일 때만
+     * mediaType 이 null(produce 가능 타입 수집) 이면 X > Accept 가 없거나 * / * 인 기존 요청이 이 변환기로 오지 않도록
+     */
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return isMemberPage(type) && mediaType != null && mediaType.isConcrete() && canWrite(mediaType);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+//        제네릭 타입을 모르면 처리 X(canWrite(Type, ...) 만 사용)
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected void writeInternal(Page<MemberTeamDto> page, Type type, HttpOutputMessage outputMessage) throws IOException {
+        writePage(page, outputMessage.getHeaders().getContentType(), outputMessage.getBody());
+    }
+
+    public void writePage(Page<MemberTeamDto> page, MediaType mediaType, OutputStream out) throws IOException {
+        try (JsonGenerator generator = factory(mediaType).createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeFieldName(CONTENT);
+            generator.writeStartArray();
+            for (MemberTeamDto dto : page.getContent()) {
+                generator.writeStartObject();
+                generator.writeFieldName(MEMBER_ID);
+                writeNumber(generator, dto.getMemberId());
+                generator.writeFieldName(USERNAME);
+                generator.writeString(dto.getUsername());
+                generator.writeFieldName(AGE);
+                writeNumber(generator, dto.getAge());
+                generator.writeFieldName(TEAM_ID);
+                writeNumber(generator, dto.getTeamId());
+                generator.writeFieldName(NAME);
+                generator.writeString(dto.getName());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+
+            generator.writeFieldName(PAGE);
+            generator.writeStartObject();
+            generator.writeFieldName(NUMBER);
+            generator.writeNumber(page.getNumber());
+            generator.writeFieldName(SIZE);
+            generator.writeNumber(page.getSize());
+            generator.writeFieldName(TOTAL_ELEMENTS);
+            generator.writeNumber(page.getTotalElements());
+            generator.writeFieldName(TOTAL_PAGES);
+            generator.writeNumber(page.getTotalPages());
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+    }
+
+    @Override
+    public Page<MemberTeamDto> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Reading member page is not supported", inputMessage);
+    }
+
+    @Override
+    protected Page<MemberTeamDto> readInternal(Class<? extends Page<MemberTeamDto>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Reading member page is not supported", inputMessage);
+    }
+
+    private JsonFactory factory(MediaType mediaType) {
+        if (CBOR.equalsTypeAndSubtype(mediaType)) {
+            return cbor;
+        }
+        if (SMILE.equalsTypeAndSubtype(mediaType)) {
+            return smile;
+        }
+        return json;
+    }
+
+    private static void writeNumber(JsonGenerator generator, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    private static void writeNumber(JsonGenerator generator, Integer value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    private static boolean isMemberPage(Type type) {
+        if (type == null) {
+            return false;
+        }
+        ResolvableType page = ResolvableType.forType(type).as(Page.class);
+        return page != ResolvableType.NONE && page.getGeneric(0).resolve() == MemberTeamDto.class;
+    }
+}
@@ -0,0 +1,20 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.TeamStatisticsDto;
+import study.querydsl.statistics.TeamStatistics;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+    private final TeamStatistics teamStatistics;
+
+    @GetMapping("/v1/teams/statistics")
+    public List<TeamStatisticsDto> teamStatistics(){
+        return teamStatistics.findAll();
+    }
+}
@@ -0,0 +1,17 @@
+package study.querydsl.controller;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+//    전용 미디어 타입(vnd.member-page+json)은 application/*+json 을 받는 Jackson 변환기보다 먼저
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new MemberPageHttpMessageConverter());
+    }
+}
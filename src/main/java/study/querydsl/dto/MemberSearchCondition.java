@@ -5,7 +5,24 @@ import lombok.Data;
 @Data
 public class MemberSearchCondition {
     private String username;
+//    앞부분 일치(username 인덱스), 부분 일치(UsernameIndex trigram 색인)
+    private String usernameStartsWith;
+    private String usernameContains;
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+
+    /**
+     * 필드를 복사한 새 조건 (맵 키, 조건 일부만 바꿔 쓸 때 원본을 바꾸지 않도록)
+     */
+    public MemberSearchCondition copy() {
+        MemberSearchCondition copy = new MemberSearchCondition();
+        copy.setUsername(username);
+        copy.setUsernameStartsWith(usernameStartsWith);
+        copy.setUsernameContains(usernameContains);
+        copy.setTeamName(teamName);
+        copy.setAgeGoe(ageGoe);
+        copy.setAgeLoe(ageLoe);
+        return copy;
+    }
 }
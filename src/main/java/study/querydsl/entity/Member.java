@@ -1,6 +1,7 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.Hibernate;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -12,6 +13,10 @@ import static javax.persistence.FetchType.*;
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id","username","age"})
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+//        deferred join id 페이지 조회(나이 조건/정렬)를 인덱스로 처리
+        @Index(name = "idx_member_age", columnList = "age")})
 public class Member {
     @Id @GeneratedValue
     @Column(name = "member_id")
@@ -20,6 +25,11 @@ public class Member {
     private String username;
     private int age;
 
+//    낙관적 락, 벌크 update 는 직접 version + 1 (MemberRepository.incrementAge, bulkChangeTeam)
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     @ManyToOne(fetch = LAZY)
     @JoinColumn(name = "team_id")
     Team team;
@@ -39,8 +49,12 @@ public class Member {
     }
 
 //    연관관계 편의메소드
+//    이전 팀 members 가 로딩되지 않았으면 건드리지 않음 > remove 가 컬렉션 전체를 초기화(select)하고 O(n) 탐색
+//    add 는 초기화되지 않은 inverse 컬렉션이면 큐에 쌓고 select 하지 않음
+//    대량 팀 이동은 MemberRepository.bulkChangeTeam (FK update)
     public void changeTeam(Team team){
-        if(this.team != null){
+        if(this.team != null && Hibernate.isInitialized(this.team)
+                && Hibernate.isInitialized(this.team.getMembers())){
             this.team.getMembers().remove(this);
         }
         if(team != null){
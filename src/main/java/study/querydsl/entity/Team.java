@@ -1,6 +1,8 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.OptimisticLock;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -10,6 +12,8 @@ import java.util.List;
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id","name"})
+//Member.team 프록시 초기화시 in 절로 묶어서 조회
+@BatchSize(size = 100)
 public class Team {
     @Id @GeneratedValue
     @Column(name = "team_id")
@@ -17,6 +21,14 @@ public class Team {
 
     private String name;
 
+//    낙관적 락
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
+    @BatchSize(size = 100)
+//    회원 팀 이동이 팀 version 을 올리지 않도록(같은 팀으로의 동시 이동끼리 충돌 X)
+    @OptimisticLock(excluded = true)
     @OneToMany(mappedBy = "team")
     List<Member> members = new ArrayList<>();
 
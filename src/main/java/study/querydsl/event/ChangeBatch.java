@@ -0,0 +1,26 @@
+package study.querydsl.event;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 트랜잭션 하나의 변경분 (커밋 후 1회 발행)
+ *
+ * 같은 엔티티의 여러 변경은 (처음 before, 마지막 after) 하나로 합침
+ * > insert 후 delete, 원래 값으로 되돌린 update 는 제외
+ * bulkChanged 는 대상 행을 알 수 없는 벌크연산이 실행된 엔티티 타입 > 구독자는 전체 재구성
+ * dataVersion 은 이 트랜잭션이 커밋된 뒤 올린 DataVersion (0 이면 알 수 없음)
+ */
+@Value
+public class ChangeBatch {
+    List<MemberChange> memberChanges;
+    List<TeamChange> teamChanges;
+    Set<Class<?>> bulkChanged;
+    long dataVersion;
+
+    public boolean isBulkChanged(Class<?> entityType) {
+        return bulkChanged.contains(entityType);
+    }
+}
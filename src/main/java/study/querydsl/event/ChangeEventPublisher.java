@@ -0,0 +1,244 @@
+package study.querydsl.event;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Member/Team 변경 이벤트 파이프라인
+ *
+ * 1. 엔티티 insert/update/delete > Hibernate post 이벤트(변경 전 상태 포함)에서 수집
+ * 2. Querydsl/JPQL 벌크연산 > 리포지토리가 memberChanged/bulkChanged 로 직접 발행
+ *    (JpaRepository 의 deleteAllInBatch/deleteAllByIdInBatch 도 MemberRepositoryCustomImpl 이 대신 구현)
+ * 3. Spring 트랜잭션 밖에서 이미 커밋된 벌크 쓰기(StatelessSession) > bulkCommitted 로 바로 발행
+ *
+ * 발행
+ * - MemberChange/TeamChange : flush 시점 즉시(트랜잭션 안, 롤백될 수 있음)
+ * - ChangeBatch : 커밋 후 트랜잭션당 1회, 엔티티별로 합친 변경분(롤백 시 발행 X)
+ *   커밋 후 DataVersion + 1(행 락 없는 시퀀스), 올린 버전을 ChangeBatch 에 포함
+ *   REQUIRES_NEW 안쪽 트랜잭션은 별도 버퍼 > 안쪽 커밋 시점에 발행
+ * 구독자의 전체 재구성은 RebuildScheduler 로 백그라운드 실행
+ *
+ * 커밋 후 구독자에서 DB 를 읽으려면 REQUIRES_NEW 트랜잭션 사용(이전 트랜잭션 리소스가 아직 바인딩되어 있음)
+ */
+@Component
+@RequiredArgsConstructor
+public class ChangeEventPublisher implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataVersion dataVersion;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    /**
+     * 벌크연산 등 엔티티 이벤트가 없는 회원 변경
+     */
+    public void memberChanged(Long id, MemberState before, MemberState after) {
+        MemberChange change = new MemberChange(id, before, after);
+        eventPublisher.publishEvent(change);
+        buffer().add(change);
+    }
+
+    /**
+     * 대상 행을 알 수 없는 벌크연산(update/delete where ...)
+     */
+    public void bulkChanged(Class<?>... entityTypes) {
+        buffer().addBulk(entityTypes);
+    }
+
+    /**
+     * 자체 트랜잭션에서 이미 커밋된 벌크 쓰기, 커밋 후 올린 DataVersion 과 함께 바로 발행
+     * 호출측 트랜잭션 버퍼를 거치지 않음 > 호출측이 롤백해도 발행
+     */
+    public void bulkCommitted(long dataVersion, Class<?>... entityTypes) {
+        eventPublisher.publishEvent(new ChangeBatch(List.of(), List.of(), Set.of(entityTypes), dataVersion));
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof Member) {
+            memberChanged((Long) event.getId(), null, memberState(event.getPersister(), event.getState()));
+        } else if (entity instanceof Team) {
+            teamChanged((Long) event.getId(), null, teamState(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object entity = event.getEntity();
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+//            Session.update(detached) 등 이전 상태를 모르면 전체 재구성
+            bulkChanged(event.getPersister().getMappedClass());
+            return;
+        }
+        if (entity instanceof Member) {
+            memberChanged((Long) event.getId(),
+                    memberState(event.getPersister(), oldState),
+                    memberState(event.getPersister(), event.getState()));
+        } else if (entity instanceof Team) {
+            teamChanged((Long) event.getId(),
+                    teamState(event.getPersister(), oldState),
+                    teamState(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof Member) {
+            memberChanged((Long) event.getId(), memberState(event.getPersister(), event.getDeletedState()), null);
+        } else if (entity instanceof Team) {
+            teamChanged((Long) event.getId(), teamState(event.getPersister(), event.getDeletedState()), null);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void teamChanged(Long id, TeamState before, TeamState after) {
+        TeamChange change = new TeamChange(id, before, after);
+        eventPublisher.publishEvent(change);
+        buffer().add(change);
+    }
+
+    /**
+     * 현재 트랜잭션의 변경 버퍼
+     * 트랜잭션 동기화 목록에서 찾음 > REQUIRES_NEW 로 바깥 트랜잭션이 보류되면 그 동기화 목록도 같이 보류되므로
+     * 안쪽 트랜잭션은 자기 버퍼를 새로 만들고 자기 커밋 시점에 발행
+     * 트랜잭션 동기화가 없으면(트랜잭션 밖) 바로 발행되는 1회용 버퍼
+     */
+    private ChangeBuffer buffer() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new ChangeBuffer(true);
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof ChangeBuffer && ((ChangeBuffer) synchronization).owner() == this) {
+                return (ChangeBuffer) synchronization;
+            }
+        }
+        ChangeBuffer buffer = new ChangeBuffer(false);
+        TransactionSynchronizationManager.registerSynchronization(buffer);
+        return buffer;
+    }
+
+    private static MemberState memberState(EntityPersister persister, Object[] state) {
+        Team team = (Team) state[propertyIndex(persister, "team")];
+        return new MemberState(
+                (String) state[propertyIndex(persister, "username")],
+                (Integer) state[propertyIndex(persister, "age")],
+//                프록시여도 식별자 조회는 초기화하지 않음
+                team != null ? team.getId() : null);
+    }
+
+    private static TeamState teamState(EntityPersister persister, Object[] state) {
+        return new TeamState((String) state[propertyIndex(persister, "name")]);
+    }
+
+    private static int propertyIndex(EntityPersister persister, String property) {
+        return persister.getEntityMetamodel().getPropertyIndex(property);
+    }
+
+    private class ChangeBuffer implements TransactionSynchronization {
+        private final boolean immediate;
+        private final Map<Long, MemberChange> members = new LinkedHashMap<>();
+        private final Map<Long, TeamChange> teams = new LinkedHashMap<>();
+        private final Set<Class<?>> bulkChanged = new HashSet<>();
+        private long committedVersion;
+
+        ChangeBuffer(boolean immediate) {
+            this.immediate = immediate;
+        }
+
+        void add(MemberChange change) {
+            members.merge(change.getId(), change, MemberChange::merge);
+            publishIfImmediate();
+        }
+
+        void add(TeamChange change) {
+            teams.merge(change.getId(), change, TeamChange::merge);
+            publishIfImmediate();
+        }
+
+        void addBulk(Class<?>... entityTypes) {
+            bulkChanged.addAll(List.of(entityTypes));
+            publishIfImmediate();
+        }
+
+        private void publishIfImmediate() {
+            if (immediate) {
+                publish();
+            }
+        }
+
+        ChangeEventPublisher owner() {
+            return ChangeEventPublisher.this;
+        }
+
+//        시퀀스는 트랜잭션과 무관 > 커밋이 끝난 커넥션에서 읽어도 바로 반영
+        @Override
+        public void afterCommit() {
+            committedVersion = dataVersion.bump();
+            publish();
+        }
+
+        private void publish() {
+            List<MemberChange> memberChanges = new ArrayList<>();
+            for (MemberChange change : members.values()) {
+                if (!change.isNoop()) {
+                    memberChanges.add(change);
+                }
+            }
+            List<TeamChange> teamChanges = new ArrayList<>();
+            for (TeamChange change : teams.values()) {
+                if (!change.isNoop()) {
+                    teamChanges.add(change);
+                }
+            }
+            boolean changed = !memberChanges.isEmpty() || !teamChanges.isEmpty() || !bulkChanged.isEmpty();
+            if (immediate) {
+                if (!changed) {
+                    return;
+                }
+//                트랜잭션 밖 > 이미 커밋된 변경
+                committedVersion = dataVersion.bump();
+            }
+//            합쳐서 변경이 없어도 버전을 올렸으므로 발행(구독자가 버전 누락으로 보지 않도록)
+            eventPublisher.publishEvent(new ChangeBatch(memberChanges, teamChanges, Set.copyOf(bulkChanged), committedVersion));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package study.querydsl.event;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+
+/**
+ * member/team 데이터 버전 (DB 의 data_version_seq 시퀀스)
+ *
+ * member/team 을 바꾼 트랜잭션이 커밋된 뒤 next value (ChangeEventPublisher, MemberStatelessRepository)
+ * > 시퀀스는 트랜잭션/행 락과 무관 > 쓰기 트랜잭션끼리 버전 때문에 기다리지 않음
+ * > 커밋 후 증가 : 버전 V 를 읽었으면 V 이하로 올린 쓰기는 모두 커밋되어 보임, 롤백된 쓰기는 버전을 올리지 않음
+ * > 커밋과 증가 사이에는 바뀐 데이터가 이전 버전으로 보일 수 있음(증가 후 해소), 그 사이 장애로 증가가 빠지면 다음 쓰기까지 해소 X
+ * > 다른 인스턴스의 쓰기도 같은 시퀀스를 올림
+ * > HTTP ETag(MemberController), 색인 누락 감지(UsernameIndex)에 사용
+ * 시퀀스 캐시 때문에 DB 재시작 후 값이 건너뛸 수 있음 > ETag 변경, 색인 재구성만 한 번 더 일어남
+ *
+ * 애플리케이션을 거치지 않는 SQL 로 member/team 을 바꾸면 커밋 후 직접 올려야 함
+ * select next value for data_version_seq
+ */
+@Component
+public class DataVersion {
+    private static final String BUMP = "select next value for data_version_seq";
+//    currval 은 세션별 값, information_schema 결과는 H2 가 재사용(시퀀스 증가는 데이터 변경으로 보지 않음) > rand() 로 재사용 방지
+    private static final String SELECT = "select current_value from information_schema.sequences"
+            + " where sequence_name = 'DATA_VERSION_SEQ' and rand() >= 0";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DataVersion(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+//    ddl-auto 대상(엔티티)이 아니므로 직접 생성, 재기동해도 버전 유지
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.execute("create sequence if not exists data_version_seq start with 1 increment by 1");
+    }
+
+    /**
+     * 현재 버전 (아직 아무 쓰기도 없으면 0)
+     */
+    public long current() {
+        return jdbcTemplate.queryForObject(SELECT, Long.class);
+    }
+
+    /**
+     * 1 증가, 증가된 버전 반환 (쓰기 트랜잭션 커밋 후 호출)
+     */
+    public long bump() {
+        return jdbcTemplate.queryForObject(BUMP, Long.class);
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.event;
+
+import lombok.Value;
+
+import java.util.Objects;
+
+/**
+ * 회원 변경
+ * before null > insert, after null > delete
+ */
+@Value
+public class MemberChange {
+    Long id;
+    MemberState before;
+    MemberState after;
+
+    MemberChange merge(MemberChange next) {
+        return new MemberChange(id, before, next.after);
+    }
+
+    boolean isNoop() {
+        return Objects.equals(before, after);
+    }
+}
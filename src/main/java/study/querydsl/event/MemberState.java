@@ -0,0 +1,13 @@
+package study.querydsl.event;
+
+import lombok.Value;
+
+/**
+ * 변경 전/후 회원 컬럼 스냅샷
+ */
+@Value
+public class MemberState {
+    String username;
+    int age;
+    Long teamId;
+}
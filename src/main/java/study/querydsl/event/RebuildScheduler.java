@@ -0,0 +1,53 @@
+package study.querydsl.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 구독자 전체 재구성(벌크연산 후) 백그라운드 실행
+ *
+ * ChangeBatch 는 커밋한 요청 스레드의 afterCommit 에서 발행 > 전체 조회를 그 자리에서 하지 않고 전용 스레드로 넘김
+ * 같은 작업이 대기 중이면 합침, 실행 중에 다시 요청되면 끝난 뒤 1번 더 실행(실행 중 커밋된 변경 반영)
+ * 재구성이 끝날 때까지 구독자는 이전 스냅샷으로 응답(UsernameIndex 는 like 로 대체)
+ */
+@Slf4j
+@Component
+public class RebuildScheduler {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(daemon("change-rebuild-"));
+    private final Set<Runnable> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * rebuild 는 구독자가 필드로 보관한 같은 인스턴스(대기 중 합치기 기준)
+     */
+    public void submit(Runnable rebuild) {
+        if (!pending.add(rebuild)) {
+            return;
+        }
+        executor.execute(() -> {
+            pending.remove(rebuild);
+            try {
+                rebuild.run();
+            } catch (RuntimeException e) {
+                log.warn("background rebuild failed", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static CustomizableThreadFactory daemon(String prefix) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(prefix);
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.event;
+
+import lombok.Value;
+
+import java.util.Objects;
+
+/**
+ * 팀 변경
+ * before null > insert, after null > delete
+ */
+@Value
+public class TeamChange {
+    Long id;
+    TeamState before;
+    TeamState after;
+
+    TeamChange merge(TeamChange next) {
+        return new TeamChange(id, before, next.after);
+    }
+
+    boolean isNoop() {
+        return Objects.equals(before, after);
+    }
+}
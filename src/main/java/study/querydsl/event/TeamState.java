@@ -0,0 +1,11 @@
+package study.querydsl.event;
+
+import lombok.Value;
+
+/**
+ * 변경 전/후 팀 컬럼 스냅샷
+ */
+@Value
+public class TeamState {
+    String name;
+}
@@ -0,0 +1,27 @@
+package study.querydsl.export;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@Getter
+@ToString
+public class ExportResult {
+    private final Path file;
+    private final long rows;
+    private final long bytes;
+    private final long elapsedMillis;
+    private final long rowsPerSecond;
+    private final long peakHeapBytes;
+
+    public ExportResult(Path file, long rows, long bytes, long elapsedNanos, long peakHeapBytes) {
+        this.file = file;
+        this.rows = rows;
+        this.bytes = bytes;
+        this.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        this.rowsPerSecond = elapsedNanos > 0 ? rows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos : rows;
+        this.peakHeapBytes = peakHeapBytes;
+    }
+}
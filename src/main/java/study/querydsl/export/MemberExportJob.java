@@ -0,0 +1,166 @@
+package study.querydsl.export;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.jpa.hibernate.HibernateQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 전체 내보내기 (member_id,username,age,team_id,team_name gzip CSV)
+ *
+ * findAll 처럼 엔티티 List 로 올리지 않고
+ * StatelessSession(영속성 컨텍스트 X) + Querydsl 프로젝션 + ScrollableResults(FORWARD_ONLY) 로 한 행씩 기록
+ * > 메모리는 fetch-size 행 + 고정 크기 버퍼만 사용, 행 수와 무관
+ *
+ * 임시 파일(.part)에 쓰고 끝나면 이름 변경 > 중간에 실패해도 이전 파일 유지
+ * 결과(행 수, rows/s, 힙 최대 사용량)는 로그와 ExportResult 로
+ * > 힙 사용량은 fetch-size 행마다 샘플링한 최대값(JVM 전체 힙 기준, 다른 스레드 사용량 포함)
+ */
+@Slf4j
+@Component
+public class MemberExportJob {
+    private static final String HEADER = "member_id,username,age,team_id,team_name";
+//    Tuple 변환(FactoryExpression) 없이 Hibernate 가 주는 Object[] 그대로, 컬럼 순서는 HEADER 와 같음
+    private static final Expression<Object[]> ROW =
+            ExpressionUtils.list(Object[].class, member.id, member.username, member.age, team.id, team.name);
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private final SessionFactory sessionFactory;
+    private final Path directory;
+    private final int fetchSize;
+    private final int bufferSize;
+
+    public MemberExportJob(EntityManagerFactory entityManagerFactory,
+                           @Value("${member.export.directory:export}") String directory,
+                           @Value("${member.export.fetch-size:1000}") int fetchSize,
+                           @Value("${member.export.buffer-size:65536}") int bufferSize) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.directory = Paths.get(directory);
+        this.fetchSize = fetchSize;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * 야간 내보내기, member.export.cron 이 없으면(기본 "-") 실행 X
+     */
+    @Scheduled(cron = "${member.export.cron:-}")
+    public void exportNightly() {
+        export(directory.resolve("members-" + LocalDate.now() + ".csv.gz"));
+    }
+
+    public ExportResult export(Path file) {
+        long start = System.nanoTime();
+        long peakHeap = heapUsed();
+        Path part = file.resolveSibling(file.getFileName() + ".part");
+        long rows = 0;
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (StatelessSession session = sessionFactory.openStatelessSession();
+                 Writer writer = new BufferedWriter(new OutputStreamWriter(
+                         new GZIPOutputStream(Files.newOutputStream(part), bufferSize), StandardCharsets.UTF_8), bufferSize)) {
+                Transaction transaction = session.beginTransaction();
+                try (ScrollableResults results = new HibernateQuery<Object[]>(session)
+                        .select(ROW)
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .orderBy(member.id.asc())
+                        .setFetchSize(fetchSize)
+                        .scroll(ScrollMode.FORWARD_ONLY)) {
+                    writer.write(HEADER);
+                    writer.write('\n');
+                    while (results.next()) {
+                        writeRow(writer, results.get());
+                        if (++rows % fetchSize == 0) {
+                            peakHeap = Math.max(peakHeap, heapUsed());
+                        }
+                    }
+                    peakHeap = Math.max(peakHeap, heapUsed());
+                }
+                transaction.commit();
+            }
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(part);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            deleteQuietly(part);
+            throw e;
+        }
+
+        ExportResult result = new ExportResult(file, rows, sizeOf(file), System.nanoTime() - start, peakHeap);
+        log.info("member export done. file={}, rows={}, bytes={}, elapsed={}ms, rows/s={}, peakHeap={}MB",
+                file, rows, result.getBytes(), result.getElapsedMillis(), result.getRowsPerSecond(),
+                result.getPeakHeapBytes() / (1024 * 1024));
+        return result;
+    }
+
+    private static void writeRow(Writer writer, Object[] row) throws IOException {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeValue(writer, row[i]);
+        }
+        writer.write('\n');
+    }
+
+    private static void writeValue(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static long heapUsed() {
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -2,17 +2,25 @@ package study.querydsl.repository;
 
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
-import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.cache.MemberQueryCache;
 import study.querydsl.dto.MemberTeamDto;
-import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.MemberExpressions;
+import study.querydsl.repository.support.MemberPredicates;
+import study.querydsl.search.UsernameIndex;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.springframework.util.StringUtils.*;
@@ -20,10 +28,22 @@ import static study.querydsl.entity.QMember.*;
 import static study.querydsl.entity.QTeam.team;
 
 @Repository
-@RequiredArgsConstructor
 public class MemberJpaRepository {
+//    in_clause_parameter_padding(2의 거듭제곱) 후에도 크기가 같음 > 꽉 찬 chunk 는 같은 SQL
+    private static final int IN_CHUNK_SIZE = 1024;
+
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberPredicates predicates;
+    private final ObjectProvider<MemberQueryCache> memberQueryCache;
+
+    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory, UsernameIndex usernameIndex,
+                               ObjectProvider<MemberQueryCache> memberQueryCache) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.predicates = MemberPredicates.jpa(usernameIndex);
+        this.memberQueryCache = memberQueryCache;
+    }
 
     /*public MemberJpaRepository(EntityManager em) {
         this.em = em;
@@ -35,21 +55,98 @@ public class MemberJpaRepository {
     }
 
     public Optional<Member> findById(Long id){
+        MemberQueryCache cache = completeCacheOutsideTransaction();
+        if (cache != null && !cache.containsId(id)) {
+            return Optional.empty();
+        }
         Member member = em.find(Member.class, id);
         return Optional.ofNullable(member);
     }
 
+    /**
+     * 회원 + 팀 이름 단건 조회(커밋된 데이터 기준, 수정용 X)
+     * member.cache.enabled=true 면 MemberQueryCache, 캐시 미스는 DB
+     */
+    public Optional<MemberTeamDto> findDtoById(Long id){
+        MemberQueryCache cache = memberQueryCache.getIfAvailable();
+        if (cache != null) {
+            return cache.findById(id);
+        }
+        return Optional.ofNullable(queryFactory
+                .select(MemberExpressions.MEMBER_TEAM_DTO)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.id.eq(id))
+                .fetchOne());
+    }
+
+    public List<MemberTeamDto> findDtosByUsername(String username){
+        MemberQueryCache cache = memberQueryCache.getIfAvailable();
+        if (cache != null) {
+            return cache.findByUsername(username);
+        }
+        return queryFactory
+                .select(MemberExpressions.MEMBER_TEAM_DTO)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.username.eq(username))
+                .orderBy(member.id.asc())
+                .fetch();
+    }
+
+    /**
+     * id 여러 개 조회, 입력 순서대로(없는 id 는 null)
+     * Hibernate multiLoad > 영속성 컨텍스트/2차 캐시에 있는 id 는 조회 X, 나머지는 IN_CHUNK_SIZE 씩 in 조회
+     */
+    public List<Member> findAllByIds(Collection<Long> ids){
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return em.unwrap(Session.class)
+                .byMultipleIds(Member.class)
+                .enableSessionCheck(true)
+                .enableOrderedReturn(true)
+                .withBatchSize(IN_CHUNK_SIZE)
+                .multiLoad(new ArrayList<>(ids));
+    }
+
     public List<Member> findAll(){
         return em.createQuery("select m from Member m", Member.class)
                 .getResultList();
     }
 
     public List<Member> findByUsername(String username){
+        MemberQueryCache cache = completeCacheOutsideTransaction();
+        if (cache != null && !cache.containsUsername(username)) {
+            return new ArrayList<>();
+        }
         return em.createQuery("select m from Member m where m.username = :username",Member.class)
                 .setParameter("username",username)
                 .getResultList();
     }
 
+    /**
+     * username 여러 개 조회, 입력 순서대로(없는 username 은 빈 리스트)
+     * username 은 유일하지 않음 > 영속성 컨텍스트만으로 판단할 수 없으므로 항상 in 조회(IN_CHUNK_SIZE 씩)
+     */
+    public Map<String, List<Member>> findAllByUsernames(Collection<String> usernames){
+        Map<String, List<Member>> result = new LinkedHashMap<>();
+        for (String username : usernames) {
+            result.put(username, new ArrayList<>());
+        }
+        List<String> keys = new ArrayList<>(result.keySet());
+        for (int from = 0; from < keys.size(); from += IN_CHUNK_SIZE) {
+            List<Member> members = queryFactory
+                    .selectFrom(member)
+                    .where(member.username.in(keys.subList(from, Math.min(from + IN_CHUNK_SIZE, keys.size()))))
+                    .fetch();
+            for (Member found : members) {
+                result.get(found.getUsername()).add(found);
+            }
+        }
+        return result;
+    }
+
     public List<Member> findAll_Querydsl(){
         return queryFactory
                 .selectFrom(member)
@@ -57,9 +154,14 @@ public class MemberJpaRepository {
     }
 
     public List<Member> findByUsername_Querydsl(String username){
+        MemberQueryCache cache = completeCacheOutsideTransaction();
+//        username 이 없으면 조건 없이 전체 조회
+        if (cache != null && hasText(username) && !cache.containsUsername(username)) {
+            return new ArrayList<>();
+        }
         return queryFactory
                 .selectFrom(member)
-                .where(usernameEq(username))
+                .where(predicates.usernameEq(username))
                 .fetch();
     }
 
@@ -71,6 +173,8 @@ public class MemberJpaRepository {
         if(hasText(condition.getTeamName())){
             booleanBuilder.and(team.name.eq(condition.getTeamName()));
         }
+        booleanBuilder.and(predicates.usernameStartsWith(condition.getUsernameStartsWith()));
+        booleanBuilder.and(predicates.usernameContains(condition.getUsernameContains()));
         if(condition.getAgeGoe() != null){
             booleanBuilder.and(member.age.goe(condition.getAgeGoe()));
         }
@@ -79,7 +183,7 @@ public class MemberJpaRepository {
         }
 
         return queryFactory
-                .select(new QMemberTeamDto(member.id,member.username,member.age,team.id,team.name))
+                .select(MemberExpressions.MEMBER_TEAM_DTO)
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(booleanBuilder)
@@ -88,33 +192,25 @@ public class MemberJpaRepository {
 
     public List<MemberTeamDto> search(MemberSearchCondition condition){
         return queryFactory
-                .select(new QMemberTeamDto(member.id,member.username,member.age,team.id,team.name))
+                .select(MemberExpressions.MEMBER_TEAM_DTO)
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()), ageGoe(condition.getAgeGoe()), ageLoe(condition.getAgeLoe())
-                    ,teamnameEq(condition.getTeamName()))
+                .where(predicates.usernameEq(condition.getUsername()),
+                        predicates.ageGoe(condition.getAgeGoe()),
+                        predicates.ageLoe(condition.getAgeLoe()),
+                        predicates.teamNameEq(condition.getTeamName()),
+                        predicates.usernameStartsWith(condition.getUsernameStartsWith()),
+                        predicates.usernameContains(condition.getUsernameContains()))
                 .fetch();
     }
 
-    private BooleanExpression usernameEq(String username) {
-        if(hasText(username)){
-            return member.username.eq(username);
-        }
-        return null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
-    }
-
-    private BooleanExpression teamnameEq(String teamName) {
-        if(hasText(teamName)){
-            return team.name.eq(teamName);
+//    엔티티는 캐시에서 만들 수 없음 > 캐시에 없는 회원(없는 id/username)만 DB 조회 X
+//    트랜잭션 안에서는 미커밋 persist 가 캐시에 없으므로 사용 X, 캐시가 DB 의 DataVersion 을 모두 반영하지 못했으면 사용 X
+    private MemberQueryCache completeCacheOutsideTransaction() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return null;
         }
-        return null;
+        MemberQueryCache cache = memberQueryCache.getIfAvailable();
+        return cache != null && cache.isComplete() ? cache : null;
     }
 }
@@ -0,0 +1,97 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.MemberExpressions;
+import study.querydsl.repository.support.MemberPredicates;
+import study.querydsl.repository.support.ParallelReadExecutor;
+import study.querydsl.search.UsernameIndex;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * Reactive 검색 리포지토리
+ *
+ * JDBC 는 blocking 이므로 요청 스레드 대신 회원 조회 전용 풀(ParallelReadExecutor, member-search)에서 실행
+ * > 동시 DB 조회 수는 스레드 수로 제한, 초과분은 큐에서 대기(queued-tasks 초과 시 RejectedExecutionException)
+ *
+ * search : member_id 기준 keyset 으로 chunk-size 씩 조회
+ * > 구독자가 요청(request)한 만큼만 다음 chunk 조회(backpressure)
+ * > chunk 마다 짧은 읽기 트랜잭션, chunk 사이에는 커넥션을 잡지 않음
+ */
+@Repository
+public class MemberReactiveRepository {
+    private final JPAQueryFactory queryFactory;
+    private final MemberRepository memberRepository;
+    private final MemberPredicates predicates;
+    private final TransactionTemplate readOnly;
+    private final Scheduler scheduler;
+    private final int chunkSize;
+
+    public MemberReactiveRepository(JPAQueryFactory queryFactory,
+                                    MemberRepository memberRepository,
+                                    UsernameIndex usernameIndex,
+                                    PlatformTransactionManager transactionManager,
+                                    ParallelReadExecutor parallelReadExecutor,
+                                    @Value("${member.search.chunk-size:500}") int chunkSize) {
+        this.queryFactory = queryFactory;
+        this.memberRepository = memberRepository;
+        this.predicates = MemberPredicates.jpa(usernameIndex);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.scheduler = parallelReadExecutor.scheduler();
+        this.chunkSize = chunkSize;
+    }
+
+    public Flux<MemberTeamDto> search(MemberSearchCondition condition) {
+        return Flux.defer(() -> {
+                    Predicate where = predicates.search(condition);
+                    return Flux.<List<MemberTeamDto>, Long>generate(() -> 0L, (lastId, sink) -> {
+                        List<MemberTeamDto> chunk = readOnly.execute(status -> fetchChunk(where, lastId));
+                        if (chunk.isEmpty()) {
+                            sink.complete();
+                            return lastId;
+                        }
+                        sink.next(chunk);
+                        if (chunk.size() < chunkSize) {
+                            sink.complete();
+                        }
+                        return chunk.get(chunk.size() - 1).getMemberId();
+                    });
+                })
+//                chunk 하나씩 요청
+                .flatMapIterable(Function.identity(), 1)
+                .subscribeOn(scheduler);
+    }
+
+    public Mono<Page<MemberTeamDto>> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        return Mono.fromCallable(() -> readOnly.execute(status -> memberRepository.searchPageComplex(condition, pageable)))
+                .subscribeOn(scheduler);
+    }
+
+    private List<MemberTeamDto> fetchChunk(Predicate where, Long lastId) {
+        return queryFactory
+                .select(MemberExpressions.MEMBER_TEAM_DTO)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(where, member.id.gt(lastId))
+                .orderBy(member.id.asc())
+                .limit(chunkSize)
+                .fetch();
+    }
+}
@@ -4,11 +4,23 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
+    Map<MemberSearchCondition, List<MemberTeamDto>> searchAll(List<MemberSearchCondition> conditions);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+    long bulkChangeTeam(Collection<Long> memberIds, Long teamId);
+    long incrementAge(Collection<Long> memberIds);
+    boolean changeTeam(Long memberId, Long teamId);
+
+//    JpaRepository batch 삭제 대신 구현(변경 이벤트 발행)
+    void deleteAllInBatch();
+    void deleteAllInBatch(Iterable<Member> entities);
+    void deleteAllByIdInBatch(Iterable<Long> ids);
 }
@@ -1,59 +1,156 @@
 package study.querydsl.repository;
 
+import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.QueryResults;
-import com.querydsl.core.types.Order;
-import com.querydsl.core.types.OrderSpecifier;
-import com.querydsl.core.types.dsl.BooleanExpression;
-import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.ComparableExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
-import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.ChangeEventPublisher;
+import study.querydsl.event.MemberState;
+import study.querydsl.repository.support.AdaptivePaging;
+import study.querydsl.repository.support.EntityMetadata;
+import study.querydsl.repository.support.MemberExpressions;
+import study.querydsl.repository.support.MemberPredicates;
+import study.querydsl.repository.support.OptimisticRetry;
+import study.querydsl.repository.support.ParallelReadExecutor;
+import study.querydsl.repository.support.QuerydslMetadataRegistry;
+import study.querydsl.search.UsernameIndex;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.springframework.util.StringUtils.*;
 import static study.querydsl.entity.QMember.*;
 import static study.querydsl.entity.QTeam.*;
 
 public class MemberRepositoryCustomImpl implements MemberRepositoryCustom{
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final ChangeEventPublisher changeEventPublisher;
+    private final MemberPredicates predicates;
+    private final AdaptivePaging adaptivePaging;
+    private final EntityMetadata<Member> memberMetadata;
+    private final ParallelReadExecutor parallelReadExecutor;
+    private final OptimisticRetry optimisticRetry;
 
-    public MemberRepositoryCustomImpl(EntityManager em){
-        queryFactory = new JPAQueryFactory(em);
+    public MemberRepositoryCustomImpl(EntityManager em, JPAQueryFactory queryFactory, ChangeEventPublisher changeEventPublisher,
+                                      UsernameIndex usernameIndex, AdaptivePaging adaptivePaging,
+                                      QuerydslMetadataRegistry metadataRegistry, ParallelReadExecutor parallelReadExecutor,
+                                      OptimisticRetry optimisticRetry){
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.changeEventPublisher = changeEventPublisher;
+        this.predicates = MemberPredicates.jpa(usernameIndex);
+        this.adaptivePaging = adaptivePaging;
+        this.memberMetadata = metadataRegistry.get(Member.class);
+        this.parallelReadExecutor = parallelReadExecutor;
+        this.optimisticRetry = optimisticRetry;
     }
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
         return queryFactory
-                .select(new QMemberTeamDto(member.id,member.username,member.age,team.id,team.name))
+                .select(MemberExpressions.MEMBER_TEAM_DTO)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(predicates.search(condition))
+                .fetch();
+    }
+
+    /**
+     * 배치 검색, 조건별 결과(입력 순서, 같은 조건은 1번만 조회)
+     *
+     * 합치기 : username 외 조건이 같은 것끼리 username in (...) 쿼리 1번(IN_CHUNK_SIZE 단위) > username 으로 분배
+     * 나머지 조건은 ParallelReadExecutor 로 병렬 조회(조건마다 별도 커넥션)
+     */
+    @Override
+    public Map<MemberSearchCondition, List<MemberTeamDto>> searchAll(List<MemberSearchCondition> conditions) {
+//        조건 객체는 가변(@Data) > 복사본을 key 로 사용
+        Set<MemberSearchCondition> distinct = new LinkedHashSet<>();
+        for (MemberSearchCondition condition : conditions) {
+            distinct.add(condition.copy());
+        }
+
+        Map<MemberSearchCondition, List<MemberSearchCondition>> byUsername = new LinkedHashMap<>();
+        List<Supplier<Map<MemberSearchCondition, List<MemberTeamDto>>>> tasks = new ArrayList<>();
+        for (MemberSearchCondition condition : distinct) {
+            if (hasText(condition.getUsername())) {
+                MemberSearchCondition rest = condition.copy();
+                rest.setUsername(null);
+                byUsername.computeIfAbsent(rest, r -> new ArrayList<>()).add(condition);
+            } else {
+                tasks.add(() -> Map.of(condition, search(condition)));
+            }
+        }
+        byUsername.forEach((rest, group) -> {
+            for (int from = 0; from < group.size(); from += IN_CHUNK_SIZE) {
+                List<MemberSearchCondition> chunk = group.subList(from, Math.min(from + IN_CHUNK_SIZE, group.size()));
+                tasks.add(() -> searchByUsernames(rest, chunk));
+            }
+        });
+
+        Map<MemberSearchCondition, List<MemberTeamDto>> merged = new HashMap<>();
+        parallelReadExecutor.invokeAll(tasks).forEach(merged::putAll);
+        Map<MemberSearchCondition, List<MemberTeamDto>> result = new LinkedHashMap<>();
+        for (MemberSearchCondition condition : distinct) {
+            result.put(condition, merged.get(condition));
+        }
+        return result;
+    }
+
+    private Map<MemberSearchCondition, List<MemberTeamDto>> searchByUsernames(MemberSearchCondition rest,
+                                                                              List<MemberSearchCondition> group) {
+        List<String> usernames = new ArrayList<>(group.size());
+        for (MemberSearchCondition condition : group) {
+            usernames.add(condition.getUsername());
+        }
+        List<MemberTeamDto> rows = queryFactory
+                .select(MemberExpressions.MEMBER_TEAM_DTO)
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
+                .where(member.username.in(usernames), predicates.search(rest))
                 .fetch();
+
+        Map<String, List<MemberTeamDto>> byName = new HashMap<>();
+        for (MemberTeamDto row : rows) {
+            byName.computeIfAbsent(row.getUsername(), u -> new ArrayList<>()).add(row);
+        }
+        Map<MemberSearchCondition, List<MemberTeamDto>> result = new HashMap<>();
+        for (MemberSearchCondition condition : group) {
+            result.put(condition, byName.getOrDefault(condition.getUsername(), new ArrayList<>()));
+        }
+        return result;
     }
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
         QueryResults<MemberTeamDto> result = queryFactory
-                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .select(MemberExpressions.MEMBER_TEAM_DTO)
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
+                .where(predicates.search(condition))
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetchResults();
@@ -64,58 +161,225 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom{
 
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+//        content/count 같은 조건(UsernameIndex 후보 조회 1번)
+        BooleanBuilder where = predicates.search(condition);
         JPAQuery<MemberTeamDto> query = queryFactory
-                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .select(MemberExpressions.MEMBER_TEAM_DTO)
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()));
+                .where(where);
          
-//        Sort Bug Modify > 파라미터로 sort하는게 적절
-        for(Sort.Order o : pageable.getSort()){
-            PathBuilder pathBuilder = new PathBuilder(member.getType(),member.getMetadata());
-            query.orderBy(new OrderSpecifier<>(o.isAscending()? Order.ASC : Order.DESC,pathBuilder.get(o.getProperty())));
+        List<MemberTeamDto> content;
+        switch (adaptivePaging.choose(pageable, memberMetadata.getIdProperty())) {
+//            깊은 페이지 > id 범위 또는 id 페이지 먼저 조회
+            case ID_RANGE:
+                content = adaptivePaging.fetchByIdRange(query, memberMetadata.getIdPath(), pageable);
+                break;
+            case DEFERRED_JOIN:
+                content = fetchByDeferredJoin(query, pageable, memberMetadata.getIdPath());
+                break;
+            default:
+                content = sort(query, pageable)
+                        .offset(pageable.getOffset())
+                        .limit(pageable.getPageSize())
+                        .fetch();
         }
 
-        List<MemberTeamDto> content = query
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetch();
-
         JPAQuery<Member> countQuery = queryFactory
                 .select(member)
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()));
+                .where(where);
 
 //        return new PageImpl<>(content, pageable, total);
         return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    /**
+     * 팀 이동 벌크연산
+     * team_id FK 만 update > Team.members 컬렉션 로딩/탐색 X
+     * teamId null 이면 팀 해제
+     *
+     * 벌크연산은 영속성 컨텍스트를 무시하므로 실행 전 flush, 실행 후 clear
+     * 엔티티 이벤트가 없으므로 이동 전 상태를 락을 잡고 조회해서 ChangeEventPublisher 로 직접 발행
+     */
+    @Override
+    @Transactional
+    public long bulkChangeTeam(Collection<Long> memberIds, Long teamId) {
+        if (memberIds.isEmpty()) {
+            return 0;
+        }
+        em.flush();
+
+        Team newTeam = teamId != null ? em.getReference(Team.class, teamId) : null;
+        List<Long> ids = new ArrayList<>(memberIds);
+        long count = 0;
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+//            이동까지 다른 트랜잭션이 바꾸지 못하도록 행 락(select ... for update) > 발행하는 이동 전 상태가 실제 갱신 대상과 같음
+            List<Tuple> moved = queryFactory
+                    .select(member.id, member.username, member.age, member.team.id)
+                    .from(member)
+                    .where(member.id.in(chunk))
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .fetch();
+            for (Tuple tuple : moved) {
+                Long oldTeamId = tuple.get(member.team.id);
+                if (!Objects.equals(oldTeamId, teamId)) {
+                    String username = tuple.get(member.username);
+                    int age = tuple.get(member.age);
+                    changeEventPublisher.memberChanged(tuple.get(member.id),
+                            new MemberState(username, age, oldTeamId),
+                            new MemberState(username, age, teamId));
+                }
+            }
+            count += queryFactory
+                    .update(member)
+                    .set(member.team, newTeam)
+                    .set(member.version, member.version.add(1))
+                    .where(member.id.in(chunk))
+                    .execute();
+        }
+
+        em.clear();
+        return count;
+    }
+
+    /**
+     * 나이 + 1 벌크연산 (update ... set age = age + 1, version = version + 1)
+     * 읽고-수정-쓰기 없이 문장 하나 > 동시 호출끼리 갱신 유실 X, 엔티티 수정과는 version 으로 충돌 감지
+     *
+     * update 후 같은 트랜잭션에서 결과를 조회 > 이 트랜잭션이 행 락을 가지고 있으므로 이전 값 = age - 1
+     */
+    @Override
+    @Transactional
+    public long incrementAge(Collection<Long> memberIds) {
+        if (memberIds.isEmpty()) {
+            return 0;
+        }
+        em.flush();
+
+        List<Long> ids = new ArrayList<>(memberIds);
+        long count = 0;
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+            count += queryFactory
+                    .update(member)
+                    .set(member.age, member.age.add(1))
+                    .set(member.version, member.version.add(1))
+                    .where(member.id.in(chunk))
+                    .execute();
+            List<Tuple> updated = queryFactory
+                    .select(member.id, member.username, member.age, member.team.id)
+                    .from(member)
+                    .where(member.id.in(chunk))
+                    .fetch();
+            for (Tuple tuple : updated) {
+                String username = tuple.get(member.username);
+                int age = tuple.get(member.age);
+                Long teamId = tuple.get(member.team.id);
+                changeEventPublisher.memberChanged(tuple.get(member.id),
+                        new MemberState(username, age - 1, teamId),
+                        new MemberState(username, age, teamId));
+            }
+        }
+
+        em.clear();
+        return count;
+    }
+
+    /**
+     * 엔티티 변경(Member.changeTeam) + 낙관적 락 충돌 시 재시도(OptimisticRetry)
+     * 트랜잭션 밖에서 호출, 회원이 없으면 false
+     */
+    @Override
+    public boolean changeTeam(Long memberId, Long teamId) {
+        return optimisticRetry.execute(() -> {
+            Member findMember = em.find(Member.class, memberId);
+            if (findMember == null) {
+                return false;
+            }
+            Team newTeam = teamId != null ? em.getReference(Team.class, teamId) : null;
+            findMember.changeTeam(newTeam);
+            if (newTeam == null) {
+                findMember.setTeam(null);
+            }
+            return true;
+        });
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    /**
+     * 전체 삭제 (delete 문 하나)
+     * JpaRepository 기본 구현은 엔티티 이벤트 없이 삭제 > 대상을 알 수 없는 벌크연산으로 발행
+     */
+    @Override
+    @Transactional
+    public void deleteAllInBatch() {
+        em.flush();
+        queryFactory.delete(member).execute();
+        changeEventPublisher.bulkChanged(Member.class);
+        em.clear();
     }
 
-    private BooleanExpression usernameEq(String username) {
-        if(hasText(username)){
-            return member.username.eq(username);
+    @Override
+    @Transactional
+    public void deleteAllInBatch(Iterable<Member> entities) {
+        List<Long> ids = new ArrayList<>();
+        for (Member entity : entities) {
+            ids.add(entity.getId());
         }
-        return null;
+        deleteAllByIdInBatch(ids);
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        if(hasText(teamName)){
-            return team.name.eq(teamName);
+    /**
+     * id 로 삭제 (IN_CHUNK_SIZE 씩 delete ... where id in)
+     * 삭제 전 상태를 조회해서 ChangeEventPublisher 로 직접 발행(bulkChangeTeam 과 같은 방식, 구독자 전체 재구성 X)
+     */
+    @Override
+    @Transactional
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        List<Long> idList = new ArrayList<>();
+        ids.forEach(idList::add);
+        if (idList.isEmpty()) {
+            return;
+        }
+        em.flush();
+
+        for (int from = 0; from < idList.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = idList.subList(from, Math.min(from + IN_CHUNK_SIZE, idList.size()));
+//            삭제까지 다른 트랜잭션이 바꾸지 못하도록 행 락(select ... for update)
+            List<Tuple> deleted = queryFactory
+                    .select(member.id, member.username, member.age, member.team.id)
+                    .from(member)
+                    .where(member.id.in(chunk))
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .fetch();
+            queryFactory
+                    .delete(member)
+                    .where(member.id.in(chunk))
+                    .execute();
+            for (Tuple tuple : deleted) {
+                changeEventPublisher.memberChanged(tuple.get(member.id),
+                        new MemberState(tuple.get(member.username), tuple.get(member.age), tuple.get(member.team.id)),
+                        null);
+            }
         }
-        return null;
+
+        em.clear();
+    }
+
+//    같은 from/join/where 로 id 페이지를 먼저 조회
+    private <I extends Comparable<?>> List<MemberTeamDto> fetchByDeferredJoin(JPAQuery<MemberTeamDto> query, Pageable pageable,
+                                                                               ComparableExpression<I> idPath) {
+        JPAQuery<I> idQuery = sort(query.clone().select(idPath), pageable)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize());
+        return adaptivePaging.fetchByDeferredJoin(query, idQuery, idPath);
+    }
+
+//    Sort Bug Modify > 파라미터로 sort하는게 적절
+//    정렬 경로는 요청마다 PathBuilder 를 만들지 않고 EntityMetadata 캐시 사용
+    private <T> JPAQuery<T> sort(JPAQuery<T> query, Pageable pageable) {
+        return query.orderBy(memberMetadata.orderSpecifiers(pageable.getSort()));
     }
 }
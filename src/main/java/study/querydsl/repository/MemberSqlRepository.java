@@ -0,0 +1,90 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.MemberExpressions;
+import study.querydsl.repository.support.MemberPredicates;
+import study.querydsl.search.UsernameIndex;
+
+import java.util.List;
+import java.util.Map;
+
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * querydsl-sql 조회 리포지토리
+ *
+ * MemberRepositoryCustom search/searchPageComplex 와 같은 결과를 Hibernate 엔티티 계층 없이 조회
+ * > 영속성 컨텍스트, 더티체킹 불필요한 DTO 조회 전용
+ * > SpringConnectionProvider 는 트랜잭션 커넥션만 사용하므로 @Transactional 필수
+ */
+@Repository
+@Transactional(readOnly = true)
+public class MemberSqlRepository {
+    private static final Map<String, ComparableExpressionBase<?>> SORT_PATHS = Map.of(
+            "id", member.id,
+            "username", member.username,
+            "age", member.age,
+            "team.name", team.name);
+
+    private final SQLQueryFactory sqlQueryFactory;
+    private final MemberPredicates predicates;
+
+    public MemberSqlRepository(SQLQueryFactory sqlQueryFactory, UsernameIndex usernameIndex) {
+        this.sqlQueryFactory = sqlQueryFactory;
+        this.predicates = MemberPredicates.sql(usernameIndex);
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return searchQuery(predicates.search(condition))
+                .select(MemberExpressions.SQL_MEMBER_TEAM_DTO)
+                .fetch();
+    }
+
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        Predicate where = predicates.search(condition);
+        SQLQuery<MemberTeamDto> query = searchQuery(where)
+                .select(MemberExpressions.SQL_MEMBER_TEAM_DTO);
+
+        for (Sort.Order o : pageable.getSort()) {
+            ComparableExpressionBase<?> path = sortPath(o.getProperty());
+            query.orderBy(o.isAscending() ? path.asc() : path.desc());
+        }
+
+        List<MemberTeamDto> content = query
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        SQLQuery<Long> countQuery = searchQuery(where)
+                .select(member.count());
+
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
+
+    private SQLQuery<?> searchQuery(Predicate where) {
+        return sqlQueryFactory
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.id))
+                .where(where);
+    }
+
+    private ComparableExpressionBase<?> sortPath(String property) {
+        ComparableExpressionBase<?> path = SORT_PATHS.get(property);
+        if (path == null) {
+            throw new IllegalArgumentException("Unsupported sort property: " + property);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,180 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.hibernate.HibernateQuery;
+import com.querydsl.jpa.hibernate.HibernateUpdateClause;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import study.querydsl.event.ChangeEventPublisher;
+import study.querydsl.event.DataVersion;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * StatelessSession 기반 대량 insert/update/조회 (Member, Team)
+ *
+ * 영속성 컨텍스트(1차 캐시, 변경감지 스냅샷) 없이 바로 SQL 실행 > 처리 건수와 무관하게 메모리 일정
+ * > 지연로딩, cascade, 변경감지 X : 연관 엔티티는 식별자가 있는 상태로 넘겨야 함(Team 먼저 insert)
+ * > insert/update 는 batch-size 단위 JDBC batch
+ *
+ * 호출마다 자체 커넥션/트랜잭션에서 실행하고 커밋(Spring 트랜잭션 참여 X)
+ * > 엔티티 이벤트가 없으므로 커밋 직후 DataVersion + 1, ChangeEventPublisher.bulkCommitted 로 바로 발행(캐시/색인 재구성)
+ *   호출측 트랜잭션이 있어도 기다리지 않음, 호출측이 롤백해도 이미 커밋된 쓰기는 반영
+ */
+@Repository
+public class MemberStatelessRepository {
+    private final SessionFactory sessionFactory;
+    private final ChangeEventPublisher changeEventPublisher;
+    private final DataVersion dataVersion;
+    private final int batchSize;
+    private final int fetchSize;
+
+    public MemberStatelessRepository(EntityManagerFactory entityManagerFactory,
+                                     ChangeEventPublisher changeEventPublisher,
+                                     DataVersion dataVersion,
+                                     @Value("${member.stateless.batch-size:500}") int batchSize,
+                                     @Value("${member.stateless.fetch-size:1000}") int fetchSize) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.changeEventPublisher = changeEventPublisher;
+        this.dataVersion = dataVersion;
+        this.batchSize = batchSize;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * 엔티티에 식별자가 채워짐, 입력 순서대로 insert(Team 을 Member 보다 앞에)
+     */
+    public long insertAll(Collection<?> entities) {
+        if (entities.isEmpty()) {
+            return 0;
+        }
+        return write(session -> {
+            for (Object entity : entities) {
+                session.insert(entity);
+            }
+            return entities.size();
+        }, entityTypes(entities));
+    }
+
+    /**
+     * 엔티티 상태 그대로 전체 컬럼 update(변경감지 X)
+     */
+    public long updateAll(Collection<?> entities) {
+        if (entities.isEmpty()) {
+            return 0;
+        }
+        return write(session -> {
+            for (Object entity : entities) {
+                session.update(entity);
+            }
+            return entities.size();
+        }, entityTypes(entities));
+    }
+
+    /**
+     * Querydsl update 절
+     * @Version 엔티티는 version = version + 1 을 항상 추가(엔티티 update 가 벌크 쓰기와의 충돌을 감지하도록)
+     * ex) update(member, clause -> clause.set(member.age, member.age.add(1)).where(member.team.id.eq(teamId)))
+     */
+    public long update(EntityPath<?> entity, Consumer<HibernateUpdateClause> clause) {
+        return write(session -> {
+            HibernateUpdateClause update = new HibernateUpdateClause(session, entity);
+            clause.accept(update);
+            incrementVersion(entity, update);
+            return update.execute();
+        }, entity.getType());
+    }
+
+    /**
+     * Querydsl 조회 결과를 한 행씩 전달(FORWARD_ONLY scroll, fetch-size 행씩 조회)
+     * 프로젝션은 단일 Expression(엔티티, 컬럼, DTO) 만, 엔티티는 detached 상태(지연로딩 X)
+     * ex) scroll(query -> query.select(member).from(member).where(member.age.goe(10)), consumer)
+     *
+     * @return 전달한 행 수
+     */
+    public <T> long scroll(Function<HibernateQuery<?>, HibernateQuery<T>> query, Consumer<T> consumer) {
+        return inTransaction(session -> {
+            long rows = 0;
+            try (ScrollableResults results = query.apply(new HibernateQuery<>(session))
+                    .setFetchSize(fetchSize)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (results.next()) {
+//                    HibernateQuery<T> 의 단일 프로젝션 > 0번 값이 T (ScrollableResults 는 타입 정보가 없음)
+                    @SuppressWarnings("unchecked")
+                    T row = (T) results.get(0);
+                    consumer.accept(row);
+                    rows++;
+                }
+            }
+            return rows;
+        });
+    }
+
+    private <R> R inTransaction(Function<StatelessSession, R> work) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(batchSize);
+            Transaction transaction = session.beginTransaction();
+            try {
+                R result = work.apply(session);
+                transaction.commit();
+                return result;
+            } catch (RuntimeException | Error e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void incrementVersion(EntityPath<?> entity, HibernateUpdateClause update) {
+        EntityPersister persister = sessionFactory.unwrap(SessionFactoryImplementor.class)
+                .getMetamodel()
+                .entityPersister(entity.getType());
+        if (!persister.isVersioned()) {
+            return;
+        }
+        Class<?> versionType = persister.getVersionType().getReturnedClass();
+        if (!Number.class.isAssignableFrom(versionType) || !Comparable.class.isAssignableFrom(versionType)) {
+            throw new IllegalArgumentException("unsupported version type " + versionType.getName() + " of " + entity.getType().getName());
+        }
+        increment(update, new PathBuilder<>(entity.getType(), entity.getMetadata()),
+                persister.getPropertyNames()[persister.getVersionProperty()], (Class) versionType);
+    }
+
+    private static <N extends Number & Comparable<?>> void increment(HibernateUpdateClause update, PathBuilder<?> entity,
+                                                                      String property, Class<N> type) {
+        NumberPath<N> path = entity.getNumber(property, type);
+        update.set(path, path.add(1));
+    }
+
+    /**
+     * 쓰기를 커밋한 뒤 DataVersion 증가, 바로 발행
+     */
+    private long write(ToLongFunction<StatelessSession> work, Class<?>... entityTypes) {
+        long count = inTransaction(work::applyAsLong);
+        changeEventPublisher.bulkCommitted(dataVersion.bump(), entityTypes);
+        return count;
+    }
+
+    private static Class<?>[] entityTypes(Collection<?> entities) {
+        return entities.stream()
+                .map(Object::getClass)
+                .distinct()
+                .toArray(Class[]::new);
+    }
+}
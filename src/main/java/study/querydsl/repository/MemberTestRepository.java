@@ -1,6 +1,6 @@
 package study.querydsl.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.BooleanBuilder;
 import com.querydsl.jpa.impl.JPAQuery;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -9,11 +9,13 @@ import org.springframework.stereotype.Repository;
 
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
-import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
+import study.querydsl.repository.support.MemberExpressions;
+import study.querydsl.repository.support.MemberPredicates;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
+import study.querydsl.search.UsernameIndex;
 
 import java.util.List;
 
@@ -24,8 +26,11 @@ import static study.querydsl.entity.QTeam.*;
 @Repository
 public class MemberTestRepository extends Querydsl4RepositorySupport {
 
-    public MemberTestRepository(){
+    private final MemberPredicates predicates;
+
+    public MemberTestRepository(UsernameIndex usernameIndex){
         super(Member.class);
+        this.predicates = MemberPredicates.jpa(usernameIndex);
     }
 
     public List<Member> basicSelect(){
@@ -42,10 +47,7 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
     public Page<Member> searchByApplyPage(MemberSearchCondition condition, Pageable pageable){
         JPAQuery<Member> query = selectFrom(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()));
+                .where(predicates.search(condition));
 
         List<Member> content = getQuerydsl().applyPagination(pageable, query).fetch();
         return PageableExecutionUtils.getPage(content, pageable,query::fetchCount);
@@ -53,57 +55,31 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
 
     public Page<MemberTeamDto> applyPagination(MemberSearchCondition condition, Pageable pageable) {
         return applyPagination(pageable, contentQuery -> contentQuery
-                .select(new QMemberTeamDto(member.id,member.username,member.age,team.id,team.name))
+                .select(MemberExpressions.MEMBER_TEAM_DTO)
                 .from(member)
 //                .selectFrom(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())));
+                .where(predicates.search(condition)));
     }
 
     public Page<MemberTeamDto> applyPagination2(MemberSearchCondition condition, Pageable pageable) {
-        return applyPagination(pageable,
+        BooleanBuilder where = predicates.search(condition);
+        return applyDeferredPagination(pageable,
                 contentQuery -> contentQuery
-                        .select(new QMemberTeamDto(member.id,member.username,member.age,team.id,team.name))
+                        .select(MemberExpressions.MEMBER_TEAM_DTO)
                         .from(member)
 //                        .selectFrom(member)
                         .leftJoin(member.team, team)
-                        .where(usernameEq(condition.getUsername()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe())),
-                countQuery -> countQuery
-                        .selectFrom(member)
-                        .leftJoin(member.team, team)
-                        .where(usernameEq(condition.getUsername()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe()))
+                        .where(where),
+//                id 페이지 조회 > team 조인은 팀 조건이 있을 때만
+                idQuery -> teamJoin(idQuery.from(member), condition)
+                        .where(where),
+                countQuery -> teamJoin(countQuery.selectFrom(member), condition)
+                        .where(where)
         );
     }
 
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
-    }
-
-    private BooleanExpression usernameEq(String username) {
-        if(hasText(username)){
-            return member.username.eq(username);
-        }
-        return null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        if(hasText(teamName)){
-            return team.name.eq(teamName);
-        }
-        return null;
+    private JPAQuery<?> teamJoin(JPAQuery<?> query, MemberSearchCondition condition) {
+        return hasText(condition.getTeamName()) ? query.leftJoin(member.team, team) : query;
     }
 }
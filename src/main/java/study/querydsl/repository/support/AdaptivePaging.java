@@ -0,0 +1,256 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.Fetchable;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.MapExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.core.types.dsl.ComparableExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 페이지 깊이에 따라 조회 방식 선택
+ *
+ * offset 이 member.paging.deep-offset 미만 > OFFSET : 기존 offset/limit
+ * 그 이상이고 id 정렬(또는 정렬 없음) > ID_RANGE
+ * > 1. offset 위치의 id 하나만 조회 : 루트 엔티티 + where, 조인은 where 가 참조하는 것만 (프로젝션/조인 컬럼 X)
+ * > 2. id >= 시작 id 조건으로 pageSize 건만 조회
+ * 그 이상이고 다른 정렬 > DEFERRED_JOIN
+ * > 1. 정렬/offset/limit 을 id 만 select 해서 적용 (건너뛰는 행은 프로젝션/조인 X)
+ * > 2. 그 id 들만 in 으로 프로젝션 조회, 1 의 순서대로 정렬
+ * 결과와 Page 계약(content/total)은 OFFSET 과 같음, 정렬 없는 깊은 페이지는 id 순으로 고정
+ */
+@Component
+public class AdaptivePaging {
+    public enum Strategy {OFFSET, ID_RANGE, DEFERRED_JOIN}
+
+    private final EntityManager em;
+    private final long deepOffset;
+
+    public AdaptivePaging(EntityManager em, @Value("${member.paging.deep-offset:1000}") long deepOffset) {
+        this.em = em;
+        this.deepOffset = deepOffset;
+    }
+
+    public Strategy choose(Pageable pageable, String idProperty) {
+        if (pageable.isUnpaged() || pageable.getOffset() < deepOffset) {
+            return Strategy.OFFSET;
+        }
+        return isIdOrder(pageable.getSort(), idProperty) ? Strategy.ID_RANGE : Strategy.DEFERRED_JOIN;
+    }
+
+    /**
+     * ID_RANGE 조회
+     * query 는 where/join 까지만 적용된 상태(정렬, offset/limit 적용 X)
+     */
+    public <T, I extends Comparable<?>> List<T> fetchByIdRange(JPAQuery<T> query, ComparableExpression<I> idPath,
+                                                               Pageable pageable) {
+        Sort.Order idOrder = pageable.getSort().iterator().hasNext() ? pageable.getSort().iterator().next() : null;
+        boolean asc = idOrder == null || idOrder.isAscending();
+        OrderSpecifier<I> order = new OrderSpecifier<>(asc ? Order.ASC : Order.DESC, idPath);
+
+        I startId = whereOnly(query)
+                .select(idPath)
+                .orderBy(order)
+                .offset(pageable.getOffset())
+                .fetchFirst();
+        if (startId == null) {
+            return Collections.emptyList();
+        }
+
+        return query
+                .where(asc ? idPath.goe(startId) : idPath.loe(startId))
+                .orderBy(order)
+                .limit(pageable.getPageSize())
+                .fetch();
+    }
+
+    /**
+     * DEFERRED_JOIN 2단계 조회
+     * idQuery : id 만 select, 정렬/offset/limit 적용된 상태
+     * query : 프로젝션, where/join 까지만 적용된 상태
+     */
+    public <T, I extends Comparable<?>> List<T> fetchByDeferredJoin(JPAQuery<T> query, Fetchable<I> idQuery,
+                                                                    ComparableExpression<I> idPath) {
+        List<I> ids = idQuery.fetch();
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Expression<T> projection = projection(query);
+        List<Tuple> rows = query
+                .select(idPath, projection)
+                .where(idPath.in(ids))
+                .fetch();
+
+        Map<Object, T> byId = new HashMap<>();
+        for (Tuple row : rows) {
+            byId.put(row.get(idPath), row.get(projection));
+        }
+        List<T> content = new ArrayList<>(ids.size());
+        for (I id : ids) {
+            T value = byId.get(id);
+            if (value != null) {
+                content.add(value);
+            }
+        }
+        return content;
+    }
+
+//    JPAQuery<T> 의 프로젝션은 select(Expression<T>)/selectFrom(EntityPath<T>) 로 지정된 식 > 메타데이터에서 타입만 잃음
+    @SuppressWarnings("unchecked")
+    private static <T> Expression<T> projection(JPAQuery<T> query) {
+        return (Expression<T>) query.getMetadata().getProjection();
+    }
+
+    /**
+     * query 의 루트(첫 from) + where + 조인, 프로젝션/정렬/fetch 는 제외 > 건너뛰는 행은 where 에 필요한 컬럼만 읽음
+     * 조인은 행 집합을 바꾸지 않는 것만 생략 : where(또는 남긴 조인)가 참조하지 않는 to-one left join
+     * > inner join(행 필터), 컬렉션 조인(행 증가), 연관 없는 조인은 항상 유지 > 본 쿼리와 같은 행을 건너뜀
+     * where 에 서브쿼리가 있으면(상관 서브쿼리일 수 있음) 조인을 모두 유지
+     */
+    JPAQuery<?> whereOnly(JPAQuery<?> query) {
+        QueryMetadata source = query.getMetadata();
+        List<JoinExpression> joins = source.getJoins();
+        Predicate where = source.getWhere();
+
+        Set<Expression<?>> used = new HashSet<>();
+        boolean keepAll = where != null && where.accept(RootCollector.INSTANCE, used);
+        List<JoinExpression> kept = new ArrayList<>();
+        for (int i = joins.size() - 1; i >= 0; i--) {
+            JoinExpression join = joins.get(i);
+            if (i == 0 || keepAll || !isOptionalToOne(join) || used.contains(alias(join.getTarget()))) {
+                kept.add(0, join);
+                join.getTarget().accept(RootCollector.INSTANCE, used);
+                if (join.getCondition() != null) {
+                    keepAll |= join.getCondition().accept(RootCollector.INSTANCE, used);
+                }
+            }
+        }
+
+        QueryMetadata metadata = new DefaultQueryMetadata();
+        for (JoinExpression join : kept) {
+            metadata.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                metadata.addJoinCondition(join.getCondition());
+            }
+        }
+        metadata.addWhere(where);
+        return new JPAQuery<>(em, metadata);
+    }
+
+//    left join member.team as team 처럼 루트당 최대 1행인 조인
+    private static boolean isOptionalToOne(JoinExpression join) {
+        if (join.getType() != JoinType.LEFTJOIN || !(join.getTarget() instanceof Operation)
+                || ((Operation<?>) join.getTarget()).getOperator() != Ops.ALIAS) {
+            return false;
+        }
+        Expression<?> association = ((Operation<?>) join.getTarget()).getArg(0);
+        return association instanceof Path
+                && ((Path<?>) association).getMetadata().getParent() != null
+                && !(association instanceof CollectionExpression)
+                && !(association instanceof MapExpression);
+    }
+
+//    join(member.team, team) 의 target 은 alias 연산(경로, 별칭)
+    private static Expression<?> alias(Expression<?> target) {
+        if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+            return ((Operation<?>) target).getArg(1);
+        }
+        return target;
+    }
+
+    /**
+     * 식이 참조하는 경로의 루트(별칭) 수집, 서브쿼리가 있으면 true
+     */
+    private enum RootCollector implements Visitor<Boolean, Set<Expression<?>>> {
+        INSTANCE;
+
+        @Override
+        public Boolean visit(Constant<?> expr, Set<Expression<?>> roots) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(FactoryExpression<?> expr, Set<Expression<?>> roots) {
+            return visit(expr.getArgs(), roots);
+        }
+
+        @Override
+        public Boolean visit(Operation<?> expr, Set<Expression<?>> roots) {
+            return visit(expr.getArgs(), roots);
+        }
+
+        @Override
+        public Boolean visit(ParamExpression<?> expr, Set<Expression<?>> roots) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(Path<?> expr, Set<Expression<?>> roots) {
+            roots.add(expr.getRoot());
+            return false;
+        }
+
+        @Override
+        public Boolean visit(SubQueryExpression<?> expr, Set<Expression<?>> roots) {
+            return true;
+        }
+
+        @Override
+        public Boolean visit(TemplateExpression<?> expr, Set<Expression<?>> roots) {
+            boolean subQuery = false;
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    subQuery |= ((Expression<?>) arg).accept(this, roots);
+                }
+            }
+            return subQuery;
+        }
+
+        private Boolean visit(List<? extends Expression<?>> args, Set<Expression<?>> roots) {
+            boolean subQuery = false;
+            for (Expression<?> arg : args) {
+                subQuery |= arg.accept(this, roots);
+            }
+            return subQuery;
+        }
+    }
+
+    private static boolean isIdOrder(Sort sort, String idProperty) {
+        if (sort.isUnsorted()) {
+            return true;
+        }
+        List<Sort.Order> orders = sort.toList();
+        return orders.size() == 1 && orders.get(0).getProperty().equals(idProperty);
+    }
+}
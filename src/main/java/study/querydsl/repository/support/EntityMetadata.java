@@ -0,0 +1,111 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.ComparablePath;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.PathBuilder;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 엔티티 클래스별 Querydsl 메타데이터 (QuerydslMetadataRegistry 가 클래스당 1개 생성)
+ *
+ * 불변 값만 보관 > 여러 리포지토리/스레드가 공유
+ * 정렬 : 최상위 속성의 Sort.Order 별 OrderSpecifier 캐시
+ * > 키는 PropertyPath 검증을 통과한 속성만 > 존재하지 않는 속성은 PropertyReferenceException, 캐시 X
+ * > 중첩 속성(team.name)은 캐시 X, 매번 생성 > ?sort= 로 들어오는 team.members.team... 경로가 무한히 쌓이지 않도록
+ * > 경로 생성 방식은 spring-data Querydsl.applySorting 과 같음(중첩 속성, ignoreCase, nullHandling)
+ */
+public class EntityMetadata<T> {
+    private final JpaEntityInformation<T, ?> entityInformation;
+    private final EntityPath<T> path;
+    private final PathBuilder<T> builder;
+    private final ComparablePath<?> idPath;
+    private final Map<Sort.Order, OrderSpecifier<?>> orderSpecifiers = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    EntityMetadata(JpaEntityInformation<T, ?> entityInformation) {
+        this.entityInformation = entityInformation;
+        this.path = SimpleEntityPathResolver.INSTANCE.createPath(entityInformation.getJavaType());
+        this.builder = new PathBuilder<>(path.getType(), path.getMetadata());
+        this.idPath = builder.getComparable(entityInformation.getIdAttribute().getName(),
+                (Class<? extends Comparable<?>>) entityInformation.getIdType());
+    }
+
+    public JpaEntityInformation<T, ?> getEntityInformation() {
+        return entityInformation;
+    }
+
+    public EntityPath<T> getPath() {
+        return path;
+    }
+
+    public PathBuilder<T> getBuilder() {
+        return builder;
+    }
+
+    public ComparablePath<?> getIdPath() {
+        return idPath;
+    }
+
+    public String getIdProperty() {
+        return idPath.getMetadata().getName();
+    }
+
+    public OrderSpecifier<?>[] orderSpecifiers(Sort sort) {
+        if (sort.isUnsorted()) {
+            return new OrderSpecifier<?>[0];
+        }
+        return sort.stream()
+                .map(this::orderSpecifier)
+                .toArray(OrderSpecifier<?>[]::new);
+    }
+
+    public OrderSpecifier<?> orderSpecifier(Sort.Order order) {
+        if (order.getProperty().indexOf('.') >= 0) {
+            return createOrderSpecifier(order);
+        }
+        return orderSpecifiers.computeIfAbsent(order, this::createOrderSpecifier);
+    }
+
+    private OrderSpecifier<?> createOrderSpecifier(Sort.Order order) {
+        OrderSpecifier<?> specifier = orderSpecifier(order.isAscending() ? Order.ASC : Order.DESC, sortExpression(order));
+        switch (order.getNullHandling()) {
+            case NULLS_FIRST:
+                return specifier.nullsFirst();
+            case NULLS_LAST:
+                return specifier.nullsLast();
+            default:
+                return specifier;
+        }
+    }
+
+//    정렬 경로의 타입은 실행 시점에만 알 수 있음(비교는 DB 가 함) > spring-data Querydsl.toOrderSpecifier 와 같은 raw 생성
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static OrderSpecifier<?> orderSpecifier(Order order, Expression<?> expression) {
+        return new OrderSpecifier(order, expression);
+    }
+
+    private Expression<?> sortExpression(Sort.Order order) {
+        PropertyPath property = PropertyPath.from(order.getProperty(), builder.getType());
+        Expression<?> expression = builder;
+        while (property != null) {
+            if (!property.hasNext() && order.isIgnoreCase() && String.class.equals(property.getType())) {
+                expression = Expressions.stringPath((Path<?>) expression, property.getSegment()).lower();
+            } else {
+                expression = Expressions.path(property.getType(), (Path<?>) expression, property.getSegment());
+            }
+            property = property.next();
+        }
+        return expression;
+    }
+}
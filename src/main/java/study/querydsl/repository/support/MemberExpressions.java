@@ -0,0 +1,32 @@
+package study.querydsl.repository.support;
+
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.QTeam;
+import study.querydsl.sql.SMember;
+import study.querydsl.sql.STeam;
+
+/**
+ * 리포지토리 공용 Querydsl 식 (미리 만들어 재사용)
+ *
+ * Querydsl 식 트리는 불변 > 한 번 만들어 여러 쿼리/스레드에서 공유
+ * new QMemberTeamDto(...) 는 쿼리마다 ConstructorExpression, 인자 목록, 생성자 조회를 새로 만듦
+ * > 쿼리 조립 시점에는 아래 상수만 참조
+ * > 매번 만드는 식과 같은 트리(equals) > JPQL/SQL, Hibernate plan 캐시 키는 그대로
+ */
+public final class MemberExpressions {
+    /**
+     * QMember.member / QTeam.team 기준, team 은 member.team 으로 조인되어 있어야 함
+     */
+    public static final QMemberTeamDto MEMBER_TEAM_DTO = new QMemberTeamDto(
+            QMember.member.id, QMember.member.username, QMember.member.age, QTeam.team.id, QTeam.team.name);
+
+    /**
+     * SMember.member / STeam.team 기준 (querydsl-sql)
+     */
+    public static final QMemberTeamDto SQL_MEMBER_TEAM_DTO = new QMemberTeamDto(
+            SMember.member.id, SMember.member.username, SMember.member.age, STeam.team.id, STeam.team.name);
+
+    private MemberExpressions() {
+    }
+}
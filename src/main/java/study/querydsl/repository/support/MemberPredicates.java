@@ -0,0 +1,98 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.QTeam;
+import study.querydsl.search.UsernameIndex;
+import study.querydsl.sql.SMember;
+import study.querydsl.sql.STeam;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * MemberSearchCondition 검색 조건 (JPA, querydsl-sql 공용)
+ *
+ * 값이 없는 조건은 null > where(...) 에서 무시
+ * usernameContains 는 UsernameIndex 후보가 있으면 member.id in (후보) 를 같이 걸어 범위를 좁힘
+ * 팀 이름 조건은 team 이 member 에 조인되어 있어야 함
+ */
+public class MemberPredicates {
+    private final NumberPath<Long> id;
+    private final StringPath username;
+    private final NumberPath<Integer> age;
+    private final StringPath teamName;
+    private final UsernameIndex usernameIndex;
+
+    private MemberPredicates(NumberPath<Long> id, StringPath username, NumberPath<Integer> age, StringPath teamName,
+                             UsernameIndex usernameIndex) {
+        this.id = id;
+        this.username = username;
+        this.age = age;
+        this.teamName = teamName;
+        this.usernameIndex = usernameIndex;
+    }
+
+    /**
+     * QMember.member / QTeam.team 기준
+     */
+    public static MemberPredicates jpa(UsernameIndex usernameIndex) {
+        return new MemberPredicates(QMember.member.id, QMember.member.username, QMember.member.age, QTeam.team.name,
+                usernameIndex);
+    }
+
+    /**
+     * SMember.member / STeam.team 기준
+     * usernameIndex 는 기본 DB 의 회원만 색인 > 다른 DB(샤드)는 null(like 로만 조회)
+     */
+    public static MemberPredicates sql(UsernameIndex usernameIndex) {
+        return new MemberPredicates(SMember.member.id, SMember.member.username, SMember.member.age, STeam.team.name,
+                usernameIndex);
+    }
+
+    public BooleanBuilder search(MemberSearchCondition condition) {
+        return new BooleanBuilder()
+                .and(usernameEq(condition.getUsername()))
+                .and(usernameStartsWith(condition.getUsernameStartsWith()))
+                .and(usernameContains(condition.getUsernameContains()))
+                .and(teamNameEq(condition.getTeamName()))
+                .and(ageGoe(condition.getAgeGoe()))
+                .and(ageLoe(condition.getAgeLoe()));
+    }
+
+    public BooleanExpression usernameEq(String username) {
+        return hasText(username) ? this.username.eq(username) : null;
+    }
+
+    public BooleanExpression usernameStartsWith(String prefix) {
+        return hasText(prefix) ? username.startsWith(prefix) : null;
+    }
+
+    public BooleanExpression usernameContains(String keyword) {
+        if (!hasText(keyword)) {
+            return null;
+        }
+        BooleanExpression contains = username.contains(keyword);
+        if (usernameIndex == null) {
+            return contains;
+        }
+        return usernameIndex.candidates(keyword)
+                .map(ids -> id.in(ids).and(contains))
+                .orElse(contains);
+    }
+
+    public BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? this.teamName.eq(teamName) : null;
+    }
+
+    public BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? age.goe(ageGoe) : null;
+    }
+
+    public BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? age.loe(ageLoe) : null;
+    }
+}
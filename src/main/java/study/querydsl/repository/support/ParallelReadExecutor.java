@@ -0,0 +1,119 @@
+package study.querydsl.repository.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 회원 조회 전용 스레드 풀(member-search)
+ *
+ * blocking JDBC 조회용 bounded ThreadPoolExecutor 1개를 배치 검색 fan-out 과 reactive 검색(scheduler())이 같이 사용
+ * > 스레드 수 = member.search.threads = 동시 DB 조회 상한, 초과분은 큐에서 대기
+ *   0 이면 min(CPU 수, 커넥션 풀 크기 / 2), 풀 크기 이상이면 기동 실패(다른 요청이 쓸 커넥션이 없음)
+ * > 큐(member.search.queued-tasks)가 차면 RejectedExecutionException
+ *
+ * invokeAll : 작업마다 별도 읽기 전용 트랜잭션/커넥션
+ * 작업이 1개이거나 이미 풀 스레드에서 호출하면 호출 스레드에서 바로 실행(호출측 트랜잭션 참여, 풀 안에서 대기 X)
+ * 여러 개면 워커 트랜잭션에서 실행 > 호출측 트랜잭션의 미커밋 변경은 보이지 않음
+ */
+@Component
+public class ParallelReadExecutor {
+    private static final ThreadLocal<Boolean> WORKER = ThreadLocal.withInitial(() -> false);
+
+    private final ThreadPoolExecutor executor;
+    private final Scheduler scheduler;
+    private final TransactionTemplate readOnlyNewTransaction;
+
+    public ParallelReadExecutor(PlatformTransactionManager transactionManager,
+                                @Value("${member.search.threads:0}") int threads,
+                                @Value("${member.search.queued-tasks:1000}") int queuedTasks,
+                                @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        if (threads <= 0) {
+            threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), poolSize / 2));
+        } else if (threads >= poolSize) {
+            throw new IllegalArgumentException("member.search.threads(" + threads
+                    + ") must be less than the connection pool size(" + poolSize + ")");
+        }
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queuedTasks), r -> {
+                    Thread thread = new Thread(() -> {
+                        WORKER.set(true);
+                        r.run();
+                    }, "member-search-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.scheduler = Schedulers.fromExecutorService(executor, "member-search");
+        this.readOnlyNewTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyNewTransaction.setReadOnly(true);
+        this.readOnlyNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+        executor.shutdownNow();
+    }
+
+    /**
+     * 같은 풀을 쓰는 Reactor 스케줄러 (subscribeOn 용)
+     */
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * 작업 결과를 입력 순서대로 반환, 실패한 작업이 있으면 그 예외를 다시 던짐
+     */
+    public <T> List<T> invokeAll(List<Supplier<T>> tasks) {
+        if (tasks.size() == 1 || WORKER.get()) {
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Supplier<T> task : tasks) {
+                results.add(task.get());
+            }
+            return results;
+        }
+        List<Future<T>> submitted = new ArrayList<>(tasks.size());
+        try {
+            for (Supplier<T> task : tasks) {
+                submitted.add(executor.submit(() -> readOnlyNewTransaction.execute(status -> task.get())));
+            }
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : submitted) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for search tasks", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new CompletionException(e.getCause());
+        } finally {
+            submitted.forEach(future -> future.cancel(true));
+        }
+    }
+}
@@ -2,16 +2,13 @@ package study.querydsl.repository.support;
 
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
-import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.ComparableExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.support.JpaEntityInformation;
-import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.Querydsl;
-import org.springframework.data.querydsl.SimpleEntityPathResolver;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.Assert;
@@ -23,10 +20,12 @@ import java.util.function.Function;
 
 @Repository
 public abstract class Querydsl4RepositorySupport {
-    private final Class domainClass;
+    private final Class<?> domainClass;
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private EntityMetadata<?> metadata;
+    private AdaptivePaging adaptivePaging;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
@@ -36,20 +35,31 @@ public abstract class Querydsl4RepositorySupport {
     @Autowired
     public void setEntityManager(EntityManager entityManager) {
         Assert.notNull(entityManager, "EntityManager must not be null!");
-        JpaEntityInformation entityInformation =
-                JpaEntityInformationSupport.getEntityInformation(domainClass, entityManager);
-        SimpleEntityPathResolver resolver = SimpleEntityPathResolver.INSTANCE;
-        EntityPath path = resolver.createPath(entityInformation.getJavaType());
         this.entityManager = entityManager;
-        this.querydsl = new Querydsl(entityManager, new
-                PathBuilder<>(path.getType(), path.getMetadata()));
-        this.queryFactory = new JPAQueryFactory(entityManager);
+    }
+
+    @Autowired
+    public void setQueryFactory(JPAQueryFactory queryFactory) {
+        this.queryFactory = queryFactory;
+    }
+
+//    EntityPath/PathBuilder/JpaEntityInformation 은 도메인 클래스별로 공유
+    @Autowired
+    public void setMetadataRegistry(QuerydslMetadataRegistry metadataRegistry) {
+        this.metadata = metadataRegistry.get(domainClass);
+    }
+
+    @Autowired
+    public void setAdaptivePaging(AdaptivePaging adaptivePaging) {
+        this.adaptivePaging = adaptivePaging;
     }
     @PostConstruct
     public void validate() {
         Assert.notNull(entityManager, "EntityManager must not be null!");
-        Assert.notNull(querydsl, "Querydsl must not be null!");
         Assert.notNull(queryFactory, "QueryFactory must not be null!");
+        Assert.notNull(metadata, "EntityMetadata must not be null!");
+        Assert.notNull(adaptivePaging, "AdaptivePaging must not be null!");
+        this.querydsl = new Querydsl(entityManager, metadata.getBuilder());
     }
     protected JPAQueryFactory getQueryFactory() {
         return queryFactory;
@@ -60,6 +70,9 @@ public abstract class Querydsl4RepositorySupport {
     protected EntityManager getEntityManager() {
         return entityManager;
     }
+    protected EntityMetadata<?> getMetadata() {
+        return metadata;
+    }
     protected <T> JPAQuery<T> select(Expression<T> expr) {
         return getQueryFactory().select(expr);
     }
@@ -67,21 +80,72 @@ public abstract class Querydsl4RepositorySupport {
         return getQueryFactory().selectFrom(from);
     }
     protected <T> Page<T> applyPagination(Pageable pageable,
-                                          Function<JPAQueryFactory, JPAQuery> contentQuery) {
-        JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable,
-                jpaQuery).fetch();
+                                          Function<JPAQueryFactory, JPAQuery<T>> contentQuery) {
+        JPAQuery<T> jpaQuery = contentQuery.apply(getQueryFactory());
+        JPAQuery<T> countQuery = jpaQuery.clone();
+        List<T> content = fetchPage(pageable, jpaQuery);
         return PageableExecutionUtils.getPage(content, pageable,
-                jpaQuery::fetchCount);
+                countQuery::fetchCount);
     }
     protected <T> Page<T> applyPagination(Pageable pageable,
-                                          Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
-            JPAQuery> countQuery) {
-        JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable,
-                jpaContentQuery).fetch();
-        JPAQuery countResult = countQuery.apply(getQueryFactory());
+                                          Function<JPAQueryFactory, JPAQuery<T>> contentQuery, Function<JPAQueryFactory,
+            JPAQuery<?>> countQuery) {
+        JPAQuery<T> jpaContentQuery = contentQuery.apply(getQueryFactory());
+        List<T> content = fetchPage(pageable, jpaContentQuery);
+        JPAQuery<?> countResult = countQuery.apply(getQueryFactory());
+        return PageableExecutionUtils.getPage(content, pageable,
+                countResult::fetchCount);
+    }
+
+    /**
+     * deferred join 페이징 (넓은 프로젝션용)
+     * 1. idQuery(필터에 필요한 from/join/where 만)로 id 페이지 조회 > 건너뛰는 행은 인덱스 컬럼만 읽음
+     * 2. contentQuery 는 그 id 들만 프로젝션/조인, 1 의 순서 유지
+     * 얕은 페이지(member.paging.deep-offset 미만)는 contentQuery 하나로 offset 조회
+     */
+    protected <T> Page<T> applyDeferredPagination(Pageable pageable,
+                                                  Function<JPAQueryFactory, JPAQuery<T>> contentQuery,
+                                                  Function<JPAQueryFactory, JPAQuery<?>> idQuery,
+                                                  Function<JPAQueryFactory, JPAQuery<?>> countQuery) {
+        JPAQuery<T> jpaContentQuery = contentQuery.apply(getQueryFactory());
+        List<T> content;
+        if (adaptivePaging.choose(pageable, getIdProperty()) == AdaptivePaging.Strategy.OFFSET) {
+            content = paginate(pageable, jpaContentQuery).fetch();
+        } else {
+            content = fetchByDeferredJoin(pageable, jpaContentQuery, idQuery.apply(getQueryFactory()), metadata.getIdPath());
+        }
+        JPAQuery<?> countResult = countQuery.apply(getQueryFactory());
         return PageableExecutionUtils.getPage(content, pageable,
                 countResult::fetchCount);
     }
+
+//    깊은 페이지는 AdaptivePaging 전략에 따라 조회
+    private <T> List<T> fetchPage(Pageable pageable, JPAQuery<T> jpaQuery) {
+        switch (adaptivePaging.choose(pageable, getIdProperty())) {
+            case ID_RANGE:
+                return adaptivePaging.fetchByIdRange(jpaQuery, metadata.getIdPath(), pageable);
+            case DEFERRED_JOIN:
+                return fetchByDeferredJoin(pageable, jpaQuery, jpaQuery.clone(), metadata.getIdPath());
+            default:
+                return paginate(pageable, jpaQuery).fetch();
+        }
+    }
+
+//    idQuery(from/join/where) 를 id 만 select 해서 페이지 적용 후 deferred join
+    private <T, I extends Comparable<?>> List<T> fetchByDeferredJoin(Pageable pageable, JPAQuery<T> contentQuery,
+                                                                    JPAQuery<?> idQuery, ComparableExpression<I> idPath) {
+        return adaptivePaging.fetchByDeferredJoin(contentQuery, paginate(pageable, idQuery.select(idPath)), idPath);
+    }
+
+//    Querydsl.applyPagination 과 같음, 정렬 경로는 요청마다 만들지 않고 캐시된 OrderSpecifier 사용
+    private <T> JPAQuery<T> paginate(Pageable pageable, JPAQuery<T> query) {
+        if (pageable.isPaged()) {
+            query.offset(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+        return query.orderBy(metadata.orderSpecifiers(pageable.getSort()));
+    }
+
+    private String getIdProperty() {
+        return metadata.getIdProperty();
+    }
 }
@@ -0,0 +1,29 @@
+package study.querydsl.repository.support;
+
+import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 엔티티 클래스별 Querydsl 메타데이터 공유 저장소
+ *
+ * 리포지토리마다 EntityPath/PathBuilder/JpaEntityInformation 을 만들고
+ * 요청마다 정렬용 PathBuilder 를 새로 만들던 것을 클래스당 1번으로
+ */
+@Component
+public class QuerydslMetadataRegistry {
+    private final EntityManager entityManager;
+    private final Map<Class<?>, EntityMetadata<?>> metadata = new ConcurrentHashMap<>();
+
+    public QuerydslMetadataRegistry(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public <T> EntityMetadata<T> get(Class<T> domainClass) {
+        return (EntityMetadata<T>) metadata.computeIfAbsent(domainClass,
+                type -> new EntityMetadata<>(JpaEntityInformationSupport.getEntityInformation(type, entityManager)));
+    }
+}
@@ -0,0 +1,41 @@
+package study.querydsl.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * MemberJpaRepository.search 앞단 (/v1/members) single-flight
+ *
+ * 같은 조건의 동시 검색은 쿼리 1번, 결과 리스트를 공유 > 읽기 전용(unmodifiableList)으로 반환
+ * 실행/합쳐진 요청 수 : member.search.flight{result=executed|coalesced}
+ */
+@Component
+public class MemberSearchCoalescer {
+    private final MemberJpaRepository memberJpaRepository;
+    private final SingleFlight<MemberSearchCondition, List<MemberTeamDto>> flight;
+
+    public MemberSearchCoalescer(MemberJpaRepository memberJpaRepository, MeterRegistry meterRegistry) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.flight = new SingleFlight<>(meterRegistry, "member.search.flight");
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+//        조건 객체는 가변(@Data) > 복사본을 key 로 사용
+        MemberSearchCondition key = condition.copy();
+        return flight.execute(key, () -> Collections.unmodifiableList(memberJpaRepository.search(key)));
+    }
+
+    public long getExecutedCount() {
+        return flight.getExecutedCount();
+    }
+
+    public long getCoalescedCount() {
+        return flight.getCoalescedCount();
+    }
+}
@@ -0,0 +1,269 @@
+package study.querydsl.search;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.event.ChangeBatch;
+import study.querydsl.event.DataVersion;
+import study.querydsl.event.MemberChange;
+import study.querydsl.event.RebuildScheduler;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * username 부분일치(contains) 검색용 trigram 색인
+ *
+ * like '%x%' 는 인덱스를 못타고 member 전체를 스캔하므로
+ * 검색어의 trigram 을 모두 가진 member id 후보를 먼저 구해서 id in (...) 으로 좁힘
+ *
+ * 불변식 : 색인 ⊇ (appliedVersion 시점까지 커밋된 회원) + (flush 된 미커밋 추가분)
+ * > 후보는 많을 수 있어도 빠지지 않음, 최종 판정은 DB 의 like 조건이 하므로 롤백된 추가분은 결과에 영향 X
+ * > 추가는 flush 시점 MemberChange 로 즉시, 제거는 커밋 후 ChangeBatch 로 반영
+ * appliedVersion : 빠짐없이 반영한 DataVersion (재구성 직전에 읽은 버전 + 이후 연속으로 받은 ChangeBatch)
+ * > 벌크연산 ChangeBatch 는 대상을 모르므로 반영하지 않음 > 백그라운드 재구성(RebuildScheduler)이 채움
+ *
+ * 후보를 쓰지 않는 경우(empty > 호출측은 like 만으로 조회)
+ * > DB 의 DataVersion 이 appliedVersion 보다 앞섬 : 색인에 없는 쓰기가 있음
+ *   (다른 인스턴스, 벌크연산, 직접 SQL, 커밋 후 ChangeBatch 발행 전), REBUILD_GRACE 넘게 계속되면 재구성
+ * > 현재 트랜잭션에 flush 전 변경이 있음 : 조회 시 auto flush 로 DB 에는 보이지만 색인에는 아직 없음
+ */
+@Slf4j
+@Component
+public class UsernameIndex {
+    static final int GRAM = 3;
+    static final int MAX_CANDIDATES = 1000;
+    static final long REBUILD_GRACE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyNewTransaction;
+    private final DataVersion dataVersion;
+    private final RebuildScheduler rebuildScheduler;
+    private final Runnable rebuildTask = this::rebuild;
+
+    private volatile long appliedVersion;
+//    appliedVersion 보다 앞서 도착한 ChangeBatch 버전 (커밋 후 발행 순서는 버전 순서와 다를 수 있음)
+    private final Set<Long> appliedAhead = new HashSet<>();
+//    DB 버전이 appliedVersion 보다 앞선 것을 처음 본 시각(0 이면 따라잡은 상태)
+    private volatile long behindSince;
+
+    private volatile Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private volatile Map<Long, String> usernames = new ConcurrentHashMap<>();
+
+    public UsernameIndex(EntityManager em, JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager,
+                         DataVersion dataVersion, RebuildScheduler rebuildScheduler) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.dataVersion = dataVersion;
+        this.rebuildScheduler = rebuildScheduler;
+        this.readOnlyNewTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyNewTransaction.setReadOnly(true);
+        this.readOnlyNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 전체 재구성
+     * 조회는 락 밖에서, 교체는 flush 추가분과 같은 락 안에서 > 조회 중 flush 된 추가분도 유지
+     * 조회 전에 읽은 DataVersion 까지는 조회 결과에 모두 보임 > 교체 후 appliedVersion
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long versionSeen = dataVersion.current();
+        List<Tuple> result = readOnlyNewTransaction.execute(status -> queryFactory
+                .select(member.id, member.username)
+                .from(member)
+                .where(member.username.isNotNull())
+                .fetch());
+
+        synchronized (this) {
+            Map<String, Set<Long>> newPostings = new ConcurrentHashMap<>();
+            Map<Long, String> newUsernames = new ConcurrentHashMap<>();
+            for (Tuple tuple : result) {
+                index(newPostings, newUsernames, tuple.get(member.id), tuple.get(member.username));
+            }
+//            재구성 쿼리에 보이지 않는 미커밋 추가분 유지(superset)
+            usernames.forEach((id, username) -> {
+                if (!newUsernames.containsKey(id)) {
+                    index(newPostings, newUsernames, id, username);
+                }
+            });
+            postings = newPostings;
+            usernames = newUsernames;
+            if (versionSeen > appliedVersion) {
+                appliedVersion = versionSeen;
+                advanceAppliedVersion();
+            }
+        }
+        log.info("username index rebuilt. members={}, grams={}", usernames.size(), postings.size());
+    }
+
+    /**
+     * keyword 를 포함할 수 있는 member id 후보
+     * 검색어가 trigram 보다 짧거나 후보가 너무 많거나 색인이 DB 를 따라잡지 못했으면 empty > 호출측은 like 만으로 조회
+     */
+    public Optional<Set<Long>> candidates(String keyword) {
+        if (keyword == null || keyword.length() < GRAM || hasPendingChanges() || !caughtUp()) {
+            return Optional.empty();
+        }
+
+        Map<String, Set<Long>> postings = this.postings;
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : grams(keyword)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return Optional.of(Collections.emptySet());
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result.size() > MAX_CANDIDATES ? Optional.empty() : Optional.of(result);
+    }
+
+//    persist 만 하고 flush 전인 회원은 색인에 없음 > 여기서 flush 하지 않고(호출측 트랜잭션의 쓰기 시점을 바꾸지 않음) like 로 조회
+    private boolean hasPendingChanges() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && em.isJoinedToTransaction()
+                && em.unwrap(Session.class).isDirty();
+    }
+
+    private boolean caughtUp() {
+        if (dataVersion.current() <= appliedVersion) {
+            behindSince = 0;
+            return true;
+        }
+        long now = System.nanoTime();
+        long since = behindSince;
+        if (since == 0) {
+            behindSince = now;
+        } else if (now - since > REBUILD_GRACE_NANOS) {
+            behindSince = now;
+            rebuildScheduler.submit(rebuildTask);
+        }
+        return false;
+    }
+
+    /**
+     * flush 된 변경 즉시 추가(미커밋 포함)
+     */
+    @EventListener
+    public void onFlushed(MemberChange change) {
+        if (change.getAfter() != null) {
+            add(change.getId(), change.getAfter().getUsername());
+        }
+    }
+
+    /**
+     * 커밋된 변경의 이전 username 제거
+     */
+    @EventListener
+    public void onChanges(ChangeBatch batch) {
+        if (batch.isBulkChanged(Member.class)) {
+            rebuildScheduler.submit(rebuildTask);
+            return;
+        }
+        for (MemberChange change : batch.getMemberChanges()) {
+            if (change.getBefore() == null) {
+                continue;
+            }
+            if (change.getAfter() == null) {
+                removeDeleted(change.getId(), change.getBefore().getUsername());
+            } else {
+                remove(change.getId(), change.getBefore().getUsername());
+            }
+        }
+        applied(batch.getDataVersion());
+    }
+
+    private synchronized void applied(long version) {
+        if (version > appliedVersion) {
+            appliedAhead.add(version);
+            advanceAppliedVersion();
+        }
+    }
+
+    private synchronized void advanceAppliedVersion() {
+        appliedAhead.removeIf(version -> version <= appliedVersion);
+        long next = appliedVersion;
+        while (appliedAhead.remove(next + 1)) {
+            next++;
+        }
+        appliedVersion = next;
+    }
+
+    private synchronized void add(Long id, String username) {
+        index(postings, usernames, id, username);
+    }
+
+    private static void index(Map<String, Set<Long>> postings, Map<Long, String> usernames, Long id, String username) {
+        if (username == null) {
+            return;
+        }
+        usernames.put(id, username);
+        for (String gram : grams(username)) {
+            postings.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    /**
+     * 이전 username 의 gram 중 현재 username 에 없는 것만 제거
+     */
+    private synchronized void remove(Long id, String oldUsername) {
+        Set<String> stale = grams(oldUsername);
+        String current = usernames.get(id);
+        if (current != null) {
+            stale.removeAll(grams(current));
+        }
+        removeGrams(id, stale);
+    }
+
+    private synchronized void removeDeleted(Long id, String username) {
+        usernames.remove(id);
+        removeGrams(id, grams(username));
+    }
+
+    private synchronized void removeGrams(Long id, Set<String> grams) {
+        for (String gram : grams) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+            }
+        }
+    }
+
+    static Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        if (value == null) {
+            return grams;
+        }
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,128 @@
+package study.querydsl.shard;
+
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.H2Templates;
+import com.querydsl.sql.SQLExpressions;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.spring.SpringExceptionTranslator;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * member/team 샤드 (member.shard.enabled=true, member.shard.urls 에 DB 목록)
+ *
+ * 샤드마다 커넥션 풀 + querydsl-sql SQLQueryFactory, 스키마는 db/schema.sql
+ * 식별자 = 샤드 시퀀스 * 샤드 수 + 샤드 번호 > 전역 유일, 식별자만으로 샤드를 알 수 있음
+ * > member 는 team_id 의 샤드에 저장(팀 조인은 샤드 안에서), 팀이 없으면 0번 샤드
+ * > team 은 이름의 hash 로 샤드 결정 > 팀 이름 조건은 샤드 1개만 조회
+ *
+ * 샤드 수를 바꾸면 재배치 필요(식별자에 샤드 번호가 들어있음)
+ *
+ * fan-out 스레드 = 샤드 수 * 샤드 풀 크기 > 샤드마다 풀 크기만큼 동시에 조회
+ * > 초과분은 큐(member.shard.queued-tasks)에서 대기, 큐가 차면 RejectedExecutionException
+ */
+@Component
+@ConditionalOnProperty(name = "member.shard.enabled", havingValue = "true")
+public class MemberShards {
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+    private final List<SQLQueryFactory> queryFactories = new ArrayList<>();
+    private final ThreadPoolExecutor executor;
+
+    public MemberShards(@Value("${member.shard.urls}") List<String> urls,
+                        @Value("${member.shard.username:sa}") String username,
+                        @Value("${member.shard.password:}") String password,
+                        @Value("${member.shard.pool-size:4}") int poolSize,
+                        @Value("${member.shard.queued-tasks:1000}") int queuedTasks) {
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("member-shard-" + i);
+            dataSource.setJdbcUrl(urls.get(i));
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(poolSize);
+            new ResourceDatabasePopulator(new ClassPathResource("db/schema.sql")).execute(dataSource);
+
+            Configuration configuration = new Configuration(H2Templates.builder().build());
+            configuration.setExceptionTranslator(new SpringExceptionTranslator());
+            dataSources.add(dataSource);
+//            DataSource 사용 > 쿼리마다 커넥션 획득/반납(Spring 트랜잭션 X)
+            queryFactories.add(new SQLQueryFactory(configuration, dataSource));
+        }
+        AtomicInteger threads = new AtomicInteger();
+        int size = urls.size() * poolSize;
+        this.executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queuedTasks), runnable -> {
+                    Thread thread = new Thread(runnable, "member-shard-query-" + threads.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdown();
+        dataSources.forEach(HikariDataSource::close);
+    }
+
+    public int size() {
+        return queryFactories.size();
+    }
+
+    public SQLQueryFactory get(int shard) {
+        return queryFactories.get(shard);
+    }
+
+    public int shardOfTeam(Long teamId) {
+        return teamId == null ? 0 : Math.floorMod(teamId, size());
+    }
+
+    public int shardOfTeamName(String teamName) {
+        return Math.floorMod(teamName.hashCode(), size());
+    }
+
+    public long nextId(int shard) {
+        Long sequence = get(shard)
+                .select(SQLExpressions.nextval("hibernate_sequence"))
+                .fetchOne();
+        return sequence * size() + shard;
+    }
+
+    /**
+     * 샤드별 병렬 실행, 결과는 shards 순서
+     */
+    public <T> List<T> fanOut(Collection<Integer> shards, Function<SQLQueryFactory, T> work) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (Integer shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> work.apply(get(shard)), executor));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,182 @@
+package study.querydsl.shard;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.MemberExpressions;
+import study.querydsl.repository.support.MemberPredicates;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * team_id 기준 샤딩된 member 저장/조회 (MemberShards)
+ *
+ * teamName 조건 > 그 이름의 샤드 1개만 조회
+ * 그 외 > 모든 샤드 병렬 조회 후 합침
+ * > 페이지 : 샤드마다 같은 정렬로 offset + size 건 조회, 합쳐서 전역 정렬 후 offset 부터 size 건
+ * > 정렬 마지막에 id 를 붙여 샤드 간 순서 고정, count 는 샤드별 count 합
+ * > 깊은 페이지일수록 샤드당 조회 건수가 늘어남(offset + size) > offset 은 member.shard.max-offset 까지만 허용
+ *
+ * 기본 DB 의 JPA 리포지토리와 별개로 querydsl-sql 로 직접 저장
+ * > ChangeEventPublisher 발행 X, DataVersion 증가 X, UsernameIndex/MemberQueryCache/TeamStatistics 에 반영 X
+ * > 샤드 데이터는 캐시/색인/ETag 대상이 아님, 조회는 항상 샤드 DB 에서 직접
+ */
+@Repository
+@ConditionalOnProperty(name = "member.shard.enabled", havingValue = "true")
+public class ShardedMemberRepository {
+    private static final Map<String, ComparableExpressionBase<?>> SORT_PATHS = Map.of(
+            "id", member.id,
+            "username", member.username,
+            "age", member.age,
+            "team.name", team.name);
+    private static final Map<String, Function<MemberTeamDto, Comparable>> SORT_KEYS = Map.of(
+            "id", MemberTeamDto::getMemberId,
+            "username", MemberTeamDto::getUsername,
+            "age", MemberTeamDto::getAge,
+            "team.name", MemberTeamDto::getName);
+//    UsernameIndex 는 기본 DB 의 회원만 색인 > 샤드는 like 로만 조회
+    private static final MemberPredicates PREDICATES = MemberPredicates.sql(null);
+
+    private final MemberShards shards;
+    private final long maxOffset;
+
+    public ShardedMemberRepository(MemberShards shards,
+                                   @Value("${member.shard.max-offset:10000}") long maxOffset) {
+        this.shards = shards;
+        this.maxOffset = maxOffset;
+    }
+
+    public Long saveTeam(String name) {
+        int shard = hasText(name) ? shards.shardOfTeamName(name) : 0;
+        long id = shards.nextId(shard);
+        shards.get(shard).insert(team)
+                .set(team.id, id)
+                .set(team.name, name)
+                .set(team.version, 0L)
+                .execute();
+        return id;
+    }
+
+    public Long saveMember(String username, int age, Long teamId) {
+        int shard = shards.shardOfTeam(teamId);
+        long id = shards.nextId(shard);
+        shards.get(shard).insert(member)
+                .set(member.id, id)
+                .set(member.username, username)
+                .set(member.age, age)
+                .set(member.teamId, teamId)
+                .set(member.version, 0L)
+                .execute();
+        return id;
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return shards.fanOut(targetShards(condition), queryFactory -> searchQuery(queryFactory, condition)
+                        .select(MemberExpressions.SQL_MEMBER_TEAM_DTO)
+                        .fetch())
+                .stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            List<MemberTeamDto> content = search(condition);
+            content.sort(comparator(pageable.getSort().and(Sort.by("id"))));
+            return new PageImpl<>(content);
+        }
+        if (pageable.getOffset() > maxOffset) {
+            throw new IllegalArgumentException("offset " + pageable.getOffset() + " exceeds max offset " + maxOffset);
+        }
+        List<Integer> targets = targetShards(condition);
+        Sort sort = pageable.getSort().and(Sort.by("id"));
+        long limit = pageable.getOffset() + pageable.getPageSize();
+
+        List<MemberTeamDto> merged = new ArrayList<>();
+        shards.fanOut(targets, queryFactory -> searchQuery(queryFactory, condition)
+                        .select(MemberExpressions.SQL_MEMBER_TEAM_DTO)
+                        .orderBy(orderSpecifiers(sort))
+                        .limit(limit)
+                        .fetch())
+                .forEach(merged::addAll);
+        merged.sort(comparator(sort));
+
+        List<MemberTeamDto> content = merged.size() > pageable.getOffset()
+                ? merged.subList((int) pageable.getOffset(), (int) Math.min(limit, merged.size()))
+                : Collections.emptyList();
+        return PageableExecutionUtils.getPage(new ArrayList<>(content), pageable,
+                () -> shards.fanOut(targets, queryFactory -> searchQuery(queryFactory, condition)
+                                .select(member.count())
+                                .fetchOne())
+                        .stream()
+                        .mapToLong(Long::longValue)
+                        .sum());
+    }
+
+    private List<Integer> targetShards(MemberSearchCondition condition) {
+        if (hasText(condition.getTeamName())) {
+            return List.of(shards.shardOfTeamName(condition.getTeamName()));
+        }
+        return IntStream.range(0, shards.size()).boxed().collect(Collectors.toList());
+    }
+
+    private SQLQuery<?> searchQuery(SQLQueryFactory queryFactory, MemberSearchCondition condition) {
+        return queryFactory
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.id))
+                .where(PREDICATES.search(condition));
+    }
+
+    private static OrderSpecifier<?>[] orderSpecifiers(Sort sort) {
+        return sort.stream()
+                .map(o -> {
+                    ComparableExpressionBase<?> path = sortPath(o.getProperty());
+                    return o.isAscending() ? path.asc() : path.desc();
+                })
+                .toArray(OrderSpecifier<?>[]::new);
+    }
+
+    /**
+     * DB 정렬과 같은 순서 (H2 기본 : null 은 오름차순에서 앞, 내림차순에서 뒤)
+     */
+    private static Comparator<MemberTeamDto> comparator(Sort sort) {
+        Comparator<MemberTeamDto> comparator = (a, b) -> 0;
+        for (Sort.Order o : sort) {
+            sortPath(o.getProperty());
+            Comparator<MemberTeamDto> next = Comparator.comparing(SORT_KEYS.get(o.getProperty()),
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+            comparator = comparator.thenComparing(o.isAscending() ? next : next.reversed());
+        }
+        return comparator;
+    }
+
+    private static ComparableExpressionBase<?> sortPath(String property) {
+        ComparableExpressionBase<?> path = SORT_PATHS.get(property);
+        if (path == null) {
+            throw new IllegalArgumentException("Unsupported sort property: " + property);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.slowquery;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * 느린 쿼리 1건
+ * sqlWithValues : 바인드 파라미터가 채워진 SQL (표시용, 실행 X)
+ * parameters : 바인드 값(위치 > 값), EXPLAIN 용으로만 보관(응답 JSON 에는 포함 X)
+ * rowCount : 조회 건수 또는 변경 건수, 모르면 -1
+ * plan : EXPLAIN 결과, 비동기로 채워짐
+ */
+@Getter
+public class SlowQuery {
+    private final Instant executedAt;
+    private final String origin;
+    private final String sql;
+    private final String sqlWithValues;
+    private final long elapsedMillis;
+    @Getter(AccessLevel.NONE)
+    private final Map<Integer, Object> parameters;
+    private volatile int rowCount = -1;
+    private volatile String plan;
+
+    SlowQuery(Instant executedAt, String origin, String sql, String sqlWithValues, Map<Integer, Object> parameters,
+              long elapsedMillis) {
+        this.executedAt = executedAt;
+        this.origin = origin;
+        this.sql = sql;
+        this.sqlWithValues = sqlWithValues;
+        this.parameters = parameters;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    Map<Integer, Object> parameters() {
+        return parameters;
+    }
+
+    void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    void setPlan(String plan) {
+        this.plan = plan;
+    }
+}
@@ -0,0 +1,172 @@
+package study.querydsl.slowquery;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.common.Value;
+import com.p6spy.engine.event.JdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * p6spy 이벤트로 느린 쿼리 수집 (p6spy-spring-boot-starter 가 JdbcEventListener 빈을 등록)
+ *
+ * 실행 시간이 임계값 이상이면 SQL, 바인드 값, 호출한 리포지토리 메서드, 시간을 기록
+ * > select 는 ResultSet close 시점에 읽은 행 수까지 채워서 SlowQueryLog 에 추가
+ * > decorator.datasource.enabled=false(perf 프로파일)면 수집 X
+ */
+@Component
+@RequiredArgsConstructor
+public class SlowQueryListener extends JdbcEventListener {
+    private static final String REPOSITORY_PACKAGE = "study.querydsl.repository.";
+    private static final String APP_PACKAGE = "study.querydsl.";
+    private static final Method PARAMETER_VALUES = parameterValues();
+
+    private final SlowQueryLog slowQueryLog;
+//    행 수를 기다리는 느린 select
+    private final Map<StatementInformation, SlowQuery> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public void onAfterExecuteQuery(PreparedStatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (slowQueryLog.isSlow(timeElapsedNanos)) {
+            pending.put(statementInformation, slowQuery(statementInformation, timeElapsedNanos));
+        }
+    }
+
+    @Override
+    public void onAfterExecuteQuery(StatementInformation statementInformation, long timeElapsedNanos, String sql, SQLException e) {
+        if (slowQueryLog.isSlow(timeElapsedNanos)) {
+            pending.put(statementInformation, slowQuery(statementInformation, timeElapsedNanos));
+        }
+    }
+
+    @Override
+    public void onAfterResultSetClose(ResultSetInformation resultSetInformation, SQLException e) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        SlowQuery query = pending.remove(resultSetInformation.getStatementInformation());
+        if (query != null) {
+            query.setRowCount(resultSetInformation.getCurrRow() + 1);
+            slowQueryLog.add(query);
+        }
+    }
+
+    @Override
+    public void onAfterStatementClose(StatementInformation statementInformation, SQLException e) {
+        if (pending.isEmpty()) {
+            return;
+        }
+//        ResultSet 을 닫지 않고 statement 를 닫은 경우
+        SlowQuery query = pending.remove(statementInformation);
+        if (query != null) {
+            slowQueryLog.add(query);
+        }
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(PreparedStatementInformation statementInformation, long timeElapsedNanos, int rowCount, SQLException e) {
+        addUpdate(statementInformation, timeElapsedNanos, rowCount);
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(StatementInformation statementInformation, long timeElapsedNanos, String sql, int rowCount, SQLException e) {
+        addUpdate(statementInformation, timeElapsedNanos, rowCount);
+    }
+
+    @Override
+    public void onAfterExecuteBatch(StatementInformation statementInformation, long timeElapsedNanos, int[] updateCounts, SQLException e) {
+        if (slowQueryLog.isSlow(timeElapsedNanos)) {
+            int rowCount = 0;
+            for (int count : updateCounts != null ? updateCounts : new int[0]) {
+                rowCount += Math.max(count, 0);
+            }
+            addUpdate(statementInformation, timeElapsedNanos, rowCount);
+        }
+    }
+
+    private void addUpdate(StatementInformation statementInformation, long timeElapsedNanos, int rowCount) {
+        if (slowQueryLog.isSlow(timeElapsedNanos)) {
+            SlowQuery query = slowQuery(statementInformation, timeElapsedNanos);
+            query.setRowCount(rowCount);
+            slowQueryLog.add(query);
+        }
+    }
+
+    private SlowQuery slowQuery(StatementInformation statementInformation, long timeElapsedNanos) {
+        return new SlowQuery(Instant.now(), origin(),
+                statementInformation.getSql(),
+                statementInformation.getSqlWithValues(),
+                parameters(statementInformation),
+                TimeUnit.NANOSECONDS.toMillis(timeElapsedNanos));
+    }
+
+    /**
+     * PreparedStatement 바인드 값 (JDBC 위치(1부터) > 값), 알 수 없으면 null
+     * p6spy 는 값 목록을 protected 로만 제공(위치 0부터) > 느린 쿼리일 때만 reflection 으로 조회
+     */
+    private static Map<Integer, Object> parameters(StatementInformation statementInformation) {
+        if (!(statementInformation instanceof PreparedStatementInformation)) {
+            return Collections.emptyMap();
+        }
+        if (PARAMETER_VALUES == null) {
+            return null;
+        }
+        try {
+            Map<Integer, Value> values = (Map<Integer, Value>) PARAMETER_VALUES.invoke(statementInformation);
+            Map<Integer, Object> parameters = new TreeMap<>();
+            values.forEach((index, value) -> parameters.put(index + 1, value != null ? value.getValue() : null));
+            return parameters;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Method parameterValues() {
+        try {
+            Method method = PreparedStatementInformation.class.getDeclaredMethod("getParameterValues");
+            method.setAccessible(true);
+            return method;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 쿼리를 실행한 리포지토리 메서드 (Class.method)
+     * Querydsl4RepositorySupport 등 support 패키지는 건너뛰고, 리포지토리 밖이면 첫 애플리케이션 프레임
+     */
+    private static String origin() {
+        return StackWalker.getInstance().walk(frames -> {
+            Optional<StackWalker.StackFrame> app = Optional.empty();
+            for (StackWalker.StackFrame frame : (Iterable<StackWalker.StackFrame>) frames::iterator) {
+                String className = frame.getClassName();
+                if (!className.startsWith(APP_PACKAGE) || className.startsWith(SlowQueryListener.class.getPackageName())) {
+                    continue;
+                }
+                if (className.startsWith(REPOSITORY_PACKAGE) && !className.startsWith(REPOSITORY_PACKAGE + "support.")) {
+                    return format(frame);
+                }
+                if (app.isEmpty()) {
+                    app = Optional.of(frame);
+                }
+            }
+            return app.map(SlowQueryListener::format).orElse("unknown");
+        });
+    }
+
+    private static String format(StackWalker.StackFrame frame) {
+        String className = frame.getClassName();
+        return className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+    }
+}
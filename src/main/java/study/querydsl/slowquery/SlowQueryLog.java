@@ -0,0 +1,130 @@
+package study.querydsl.slowquery;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 느린 쿼리 ring buffer
+ *
+ * 최근 member.slow-query.capacity 건만 보관, 가득 차면 오래된 것부터 버림
+ * EXPLAIN 은 쿼리 실행 스레드를 막지 않도록 별도 스레드 1개에서 실행(대기 10건 초과분은 생략)
+ * > 원래 SQL(?) + 수집한 바인드 값으로 PreparedStatement 실행, 값을 SQL 문자열에 붙이지 않음
+ * > EXPLAIN 자체는 느린 쿼리로 수집 X
+ * 로그 : WARN 은 바인드 값 없는 SQL 만(개인정보), 값이 채워진 SQL 은 DEBUG
+ * DataSource 는 p6spy 로 감싸지면서 이 로그를 참조하므로 ObjectProvider 로 지연 조회
+ */
+@Slf4j
+@Component
+public class SlowQueryLog {
+    private final ObjectProvider<DataSource> dataSource;
+    private final int capacity;
+    private final boolean explain;
+    private final Deque<SlowQuery> entries = new ArrayDeque<>();
+    private final ThreadPoolExecutor explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(10), r -> {
+                Thread thread = new Thread(r, "slow-query-explain");
+                thread.setDaemon(true);
+                explainThread = thread;
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+    private volatile Thread explainThread;
+
+    private volatile long thresholdMillis;
+
+    public SlowQueryLog(ObjectProvider<DataSource> dataSource,
+                        @Value("${member.slow-query.threshold-ms:200}") long thresholdMillis,
+                        @Value("${member.slow-query.capacity:100}") int capacity,
+                        @Value("${member.slow-query.explain:true}") boolean explain) {
+        this.dataSource = dataSource;
+        this.thresholdMillis = thresholdMillis;
+        this.capacity = capacity;
+        this.explain = explain;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    public boolean isSlow(long elapsedNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos) >= thresholdMillis && Thread.currentThread() != explainThread;
+    }
+
+    public long getThresholdMillis() {
+        return thresholdMillis;
+    }
+
+    public void setThresholdMillis(long thresholdMillis) {
+        this.thresholdMillis = thresholdMillis;
+    }
+
+    public void add(SlowQuery query) {
+        synchronized (entries) {
+            if (entries.size() >= capacity) {
+                entries.pollFirst();
+            }
+            entries.addLast(query);
+        }
+        log.warn("slow query {}ms rows={} at {}: {}",
+                query.getElapsedMillis(), query.getRowCount(), query.getOrigin(), query.getSql());
+        log.debug("slow query values: {}", query.getSqlWithValues());
+        if (explain && isSelect(query.getSql()) && query.parameters() != null) {
+            explainExecutor.execute(() -> query.setPlan(explain(query.getSql(), query.parameters())));
+        }
+    }
+
+    /**
+     * 최근 것부터
+     */
+    public List<SlowQuery> findAll() {
+        synchronized (entries) {
+            List<SlowQuery> result = new ArrayList<>(entries);
+            Collections.reverse(result);
+            return result;
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private String explain(String sql, Map<Integer, Object> parameters) {
+        try {
+            List<String> rows = new JdbcTemplate(dataSource.getObject()).query("EXPLAIN " + sql, ps -> {
+                for (Map.Entry<Integer, Object> parameter : parameters.entrySet()) {
+                    ps.setObject(parameter.getKey(), parameter.getValue());
+                }
+            }, (rs, rowNum) -> rs.getString(1));
+            return String.join("\n", rows);
+        } catch (RuntimeException e) {
+            return "EXPLAIN failed: " + e.getMessage();
+        }
+    }
+
+//    use_sql_comments 주석(/* JPQL */) 제외하고 판단
+    private static boolean isSelect(String sql) {
+        String statement = sql.stripLeading();
+        if (statement.startsWith("/*")) {
+            int end = statement.indexOf("*/");
+            statement = end < 0 ? "" : statement.substring(end + 2).stripLeading();
+        }
+        return statement.regionMatches(true, 0, "select", 0, 6);
+    }
+}
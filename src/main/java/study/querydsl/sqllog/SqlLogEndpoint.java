@@ -0,0 +1,34 @@
+package study.querydsl.sqllog;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * GET /actuator/sqllog : 현재 설정, 기록/버린 건수
+ * POST /actuator/sqllog {"mode":"SAMPLED","sampleRate":10,"maxPerSecond":20,"async":true} : 실행 중 변경(준 값만)
+ * 인증 없음 > 웹 노출은 sql-debug 프로파일에서만(application-sql-debug.yml)
+ */
+@Component
+@Endpoint(id = "sqllog")
+@RequiredArgsConstructor
+public class SqlLogEndpoint {
+    private final SqlLogListener sqlLogListener;
+
+    @ReadOperation
+    public Map<String, Object> settings() {
+        return sqlLogListener.settings();
+    }
+
+    @WriteOperation
+    public Map<String, Object> configure(@Nullable SqlLogMode mode, @Nullable Integer sampleRate,
+                                         @Nullable Integer maxPerSecond, @Nullable Boolean async) {
+        sqlLogListener.configure(mode, sampleRate, maxPerSecond, async);
+        return sqlLogListener.settings();
+    }
+}
@@ -0,0 +1,169 @@
+package study.querydsl.sqllog;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * p6spy 기본 로거 대신 쓰는 SQL 로그 (실행 중 /actuator/sqllog 로 변경)
+ *
+ * statement 당 한 줄(실행시간 | 바인드 값이 채워진 SQL)
+ * > OFF 면 volatile 읽기 1번만 하고 반환
+ * > 샘플링 후 초당 max-per-second 건까지만 기록(0 이면 제한 X), 초과분은 건수만 다음 로그에 표시
+ * > async 면 로그 출력은 별도 스레드 1개에서, 대기열(1000) 초과분은 버림
+ */
+@Slf4j
+@Component
+public class SqlLogListener extends JdbcEventListener {
+    private static final int QUEUE_CAPACITY = 1000;
+
+    private volatile SqlLogMode mode;
+    private volatile int sampleRate;
+    private volatile int maxPerSecond;
+    private volatile boolean async;
+
+    private final AtomicLong windowStart = new AtomicLong();
+    private final AtomicInteger windowCount = new AtomicInteger();
+    private final LongAdder logged = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder queueDropped = new LongAdder();
+    private final AtomicLong unreportedDrops = new AtomicLong();
+    private final ThreadPoolExecutor writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                Thread thread = new Thread(r, "sql-log");
+                thread.setDaemon(true);
+                return thread;
+            }, (r, executor) -> queueDropped.increment());
+
+    public SqlLogListener(@Value("${member.sql-log.mode:OFF}") SqlLogMode mode,
+                          @Value("${member.sql-log.sample-rate:100}") int sampleRate,
+                          @Value("${member.sql-log.max-per-second:50}") int maxPerSecond,
+                          @Value("${member.sql-log.async:true}") boolean async) {
+        configure(mode, sampleRate, maxPerSecond, async);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+    }
+
+    public void configure(SqlLogMode mode, Integer sampleRate, Integer maxPerSecond, Boolean async) {
+        if (sampleRate != null) {
+            this.sampleRate = Math.max(sampleRate, 1);
+        }
+        if (maxPerSecond != null) {
+            this.maxPerSecond = Math.max(maxPerSecond, 0);
+        }
+        if (async != null) {
+            this.async = async;
+        }
+        if (mode != null) {
+            this.mode = mode;
+        }
+    }
+
+    public Map<String, Object> settings() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("mode", mode);
+        settings.put("sampleRate", sampleRate);
+        settings.put("maxPerSecond", maxPerSecond);
+        settings.put("async", async);
+        settings.put("logged", logged.sum());
+        settings.put("rateLimited", rateLimited.sum());
+        settings.put("queueDropped", queueDropped.sum());
+        return settings;
+    }
+
+    @Override
+    public void onAfterExecuteQuery(PreparedStatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        log(statementInformation, timeElapsedNanos);
+    }
+
+    @Override
+    public void onAfterExecuteQuery(StatementInformation statementInformation, long timeElapsedNanos, String sql, SQLException e) {
+        log(statementInformation, timeElapsedNanos);
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(PreparedStatementInformation statementInformation, long timeElapsedNanos, int rowCount, SQLException e) {
+        log(statementInformation, timeElapsedNanos);
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(StatementInformation statementInformation, long timeElapsedNanos, String sql, int rowCount, SQLException e) {
+        log(statementInformation, timeElapsedNanos);
+    }
+
+    @Override
+    public void onAfterExecute(PreparedStatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        log(statementInformation, timeElapsedNanos);
+    }
+
+    @Override
+    public void onAfterExecuteBatch(StatementInformation statementInformation, long timeElapsedNanos, int[] updateCounts, SQLException e) {
+        log(statementInformation, timeElapsedNanos);
+    }
+
+    private void log(StatementInformation statementInformation, long timeElapsedNanos) {
+        SqlLogMode mode = this.mode;
+        if (mode == SqlLogMode.OFF) {
+            return;
+        }
+        if (mode == SqlLogMode.SAMPLED && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            return;
+        }
+        if (!acquire()) {
+            rateLimited.increment();
+            unreportedDrops.incrementAndGet();
+            return;
+        }
+
+        String line = TimeUnit.NANOSECONDS.toMillis(timeElapsedNanos) + "ms | " + statementInformation.getSqlWithValues();
+        long drops = unreportedDrops.getAndSet(0);
+        if (async) {
+            writer.execute(() -> write(line, drops));
+        } else {
+            write(line, drops);
+        }
+    }
+
+    private void write(String line, long drops) {
+        logged.increment();
+        if (drops > 0) {
+            log.info("{} (rate limited: {} statements not logged)", line, drops);
+        } else {
+            log.info(line);
+        }
+    }
+
+    /**
+     * 1초 고정 윈도우 카운터
+     */
+    private boolean acquire() {
+        int limit = maxPerSecond;
+        if (limit == 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= TimeUnit.SECONDS.toNanos(1) && windowStart.compareAndSet(start, now)) {
+            windowCount.set(0);
+        }
+        return windowCount.incrementAndGet() <= limit;
+    }
+}
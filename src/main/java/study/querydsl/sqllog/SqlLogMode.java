@@ -0,0 +1,11 @@
+package study.querydsl.sqllog;
+
+/**
+ * SQL 로그 모드
+ * OFF : 로그 X (운영 기본)
+ * SAMPLED : sample-rate 건 중 1건
+ * ALL : 전부 (max-per-second 초과분은 버림)
+ */
+public enum SqlLogMode {
+    OFF, SAMPLED, ALL
+}
@@ -0,0 +1,20 @@
+package study.querydsl.startup;
+
+import com.p6spy.engine.event.JdbcEventListener;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.event.ChangeEventPublisher;
+
+/**
+ * spring.main.lazy-initialization=true 여도 기동 시 만들어야 하는 빈
+ * ChangeEventPublisher : Hibernate 리스너 등록(늦으면 변경 이벤트 유실)
+ * JdbcEventListener : p6spy 가 DataSource 생성 시 수집
+ */
+@Configuration
+public class FastStartConfig {
+    @Bean
+    static LazyInitializationExcludeFilter eagerInfrastructure() {
+        return LazyInitializationExcludeFilter.forBeanTypes(ChangeEventPublisher.class, JdbcEventListener.class);
+    }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.startup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 기동 단계별 시간
+ *
+ * QuerydslApplication.main 이 BufferingApplicationStartup 을 설정한 경우만 동작(테스트 컨텍스트 X)
+ * > 단계(step 이름)별 합계 : application.startup.phase{phase=...} 타이머, 로그
+ * > 가장 느린 빈 생성 5개 로그
+ * 전체 타임라인은 /actuator/startup
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StartupPhaseReporter {
+    private static final String BEAN_INSTANTIATE = "spring.beans.instantiate";
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report(ApplicationReadyEvent event) {
+        if (!(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup)) {
+            return;
+        }
+        StartupTimeline timeline = ((BufferingApplicationStartup) event.getApplicationContext().getApplicationStartup())
+                .getBufferedTimeline();
+
+        Map<String, Duration> phases = new LinkedHashMap<>();
+        for (StartupTimeline.TimelineEvent timelineEvent : timeline.getEvents()) {
+            phases.merge(timelineEvent.getStartupStep().getName(), timelineEvent.getDuration(), Duration::plus);
+        }
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            phases.forEach((phase, duration) -> Timer.builder("application.startup.phase")
+                    .tag("phase", phase)
+                    .register(registry)
+                    .record(duration));
+        }
+
+        log.info("startup phases: {}", phases.entrySet().stream()
+                .sorted(Map.Entry.<String, Duration>comparingByValue().reversed())
+                .map(e -> e.getKey() + "=" + e.getValue().toMillis() + "ms")
+                .collect(Collectors.joining(", ")));
+        log.info("slowest beans: {}", timeline.getEvents().stream()
+                .filter(e -> e.getStartupStep().getName().equals(BEAN_INSTANTIATE))
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(5)
+                .map(e -> beanName(e.getStartupStep()) + "=" + e.getDuration().toMillis() + "ms")
+                .collect(Collectors.joining(", ")));
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (tag.getKey().equals("beanName")) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+}
@@ -0,0 +1,268 @@
+package study.querydsl.statistics;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.TeamStatisticsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.ChangeBatch;
+import study.querydsl.event.DataVersion;
+import study.querydsl.event.MemberChange;
+import study.querydsl.event.MemberState;
+import study.querydsl.event.RebuildScheduler;
+import study.querydsl.event.TeamChange;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀별 회원 집계 (in-memory materialized view)
+ *
+ * select team.name, count, sum, min, max ... group by team 을 매번 member 전체에 대해 실행하지 않고
+ * 회원 저장/팀 이동/삭제/벌크연산 시점에 팀 단위로 증분 반영 > 조회는 O(teams)
+ *
+ * 변경분은 ChangeEventPublisher 의 커밋 후 ChangeBatch 로 반영(롤백된 변경은 반영 X)
+ * 대상을 알 수 없는 벌크연산은 전체 재구성(RebuildScheduler, 끝날 때까지 이전 집계), 파이프라인을 거치지 않은 변경은 verify/rebuild 로 보정
+ * > 재구성 중 도착한 ChangeBatch 는 보관했다가 새 집계에 다시 반영
+ *   조회 전에 읽은 DataVersion 이하는 조회 결과에 이미 포함 > 버전이 더 큰 것만 반영(증분 집계라 두 번 반영하면 틀어짐)
+ *   커밋 후 버전 증가 전에 조회가 시작된 변경은 조회 결과와 재반영에 모두 들어갈 수 있음(다음 verify/rebuild 로 보정)
+ */
+@Slf4j
+@Component
+public class TeamStatistics {
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyNewTransaction;
+    private final RebuildScheduler rebuildScheduler;
+    private final DataVersion dataVersion;
+    private final Runnable rebuildTask = this::rebuild;
+    private final Object rebuildLock = new Object();
+//    재구성은 새 맵으로 교체 > 조회는 참조 하나만 읽으므로 재구성 중에도 이전 집계 전체가 보임
+    private volatile Map<Long, TeamAggregate> aggregates = new ConcurrentHashMap<>();
+//    재구성 중 도착한 ChangeBatch (재구성 중이 아니면 null)
+    private List<ChangeBatch> replay;
+
+    public TeamStatistics(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager,
+                          RebuildScheduler rebuildScheduler, DataVersion dataVersion) {
+        this.queryFactory = queryFactory;
+        this.rebuildScheduler = rebuildScheduler;
+        this.dataVersion = dataVersion;
+        this.readOnlyNewTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyNewTransaction.setReadOnly(true);
+        this.readOnlyNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public List<TeamStatisticsDto> findAll() {
+        List<TeamStatisticsDto> result = new ArrayList<>();
+        for (TeamAggregate aggregate : aggregates.values()) {
+            result.add(aggregate.toDto());
+        }
+        result.sort(Comparator.comparing(TeamStatisticsDto::getTeamName, Comparator.nullsLast(Comparator.naturalOrder())));
+        return result;
+    }
+
+    public Optional<TeamStatisticsDto> findByTeamId(Long teamId) {
+        TeamAggregate aggregate = aggregates.get(teamId);
+        return aggregate == null ? Optional.empty() : Optional.of(aggregate.toDto());
+    }
+
+    /**
+     * 커밋된 변경분 반영
+     * 팀 추가/이름변경 > 회원 변경 > 팀 삭제 순서
+     */
+    @EventListener
+    public synchronized void onChanges(ChangeBatch batch) {
+        if (batch.isBulkChanged(Member.class) || batch.isBulkChanged(Team.class)) {
+            rebuildScheduler.submit(rebuildTask);
+            return;
+        }
+        if (replay != null) {
+            replay.add(batch);
+        }
+        apply(aggregates, batch);
+    }
+
+    private static void apply(Map<Long, TeamAggregate> aggregates, ChangeBatch batch) {
+        for (TeamChange change : batch.getTeamChanges()) {
+            if (change.getAfter() != null) {
+                aggregates.computeIfAbsent(change.getId(), TeamAggregate::new).rename(change.getAfter().getName());
+            }
+        }
+        for (MemberChange change : batch.getMemberChanges()) {
+            MemberState before = change.getBefore();
+            MemberState after = change.getAfter();
+            if (before != null && before.getTeamId() != null) {
+                TeamAggregate aggregate = aggregates.get(before.getTeamId());
+                if (aggregate != null) {
+                    aggregate.remove(before.getAge());
+                }
+            }
+            if (after != null && after.getTeamId() != null) {
+                aggregates.computeIfAbsent(after.getTeamId(), TeamAggregate::new).add(after.getAge());
+            }
+        }
+        for (TeamChange change : batch.getTeamChanges()) {
+            if (change.getAfter() == null) {
+                aggregates.remove(change.getId());
+            }
+        }
+    }
+
+    /**
+     * 라이브 집계로 전체 재구성
+     * 팀별 min/max 를 삭제에도 유지하기 위해 (team, age) 분포를 가져옴
+     * 조회는 락 밖에서(기존 집계는 계속 응답), 교체는 ChangeBatch 반영과 같은 락 안에서
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                replay = new ArrayList<>();
+            }
+            try {
+                long versionSeen = dataVersion.current();
+                Map<Long, TeamAggregate> rebuilt = new ConcurrentHashMap<>(readOnlyNewTransaction.execute(status -> loadAggregates()));
+                synchronized (this) {
+                    for (ChangeBatch batch : replay) {
+                        if (batch.getDataVersion() > versionSeen) {
+                            apply(rebuilt, batch);
+                        }
+                    }
+                    aggregates = rebuilt;
+                }
+                log.info("team statistics rebuilt. teams={}", rebuilt.size());
+            } finally {
+                synchronized (this) {
+                    replay = null;
+                }
+            }
+        }
+    }
+
+    private Map<Long, TeamAggregate> loadAggregates() {
+        Map<Long, TeamAggregate> rebuilt = new HashMap<>();
+        for (Tuple tuple : queryFactory.select(team.id, team.name).from(team).fetch()) {
+            rebuilt.computeIfAbsent(tuple.get(team.id), TeamAggregate::new).rename(tuple.get(team.name));
+        }
+
+        List<Tuple> distribution = queryFactory
+                .select(member.team.id, member.age, member.count())
+                .from(member)
+                .where(member.team.isNotNull())
+                .groupBy(member.team.id, member.age)
+                .fetch();
+        for (Tuple tuple : distribution) {
+            TeamAggregate aggregate = rebuilt.get(tuple.get(member.team.id));
+            if (aggregate != null) {
+                aggregate.add(tuple.get(member.age), tuple.get(member.count()));
+            }
+        }
+        return rebuilt;
+    }
+
+    /**
+     * 일관성 검사
+     * group by 라이브 집계와 비교해서 다른 팀 목록 반환(빈 목록이면 일치)
+     */
+    @Transactional(readOnly = true)
+    public List<Long> verify() {
+        Map<Long, TeamStatisticsDto> live = new HashMap<>();
+        List<Tuple> result = queryFactory
+                .select(team.id, team.name, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.id, team.name)
+                .fetch();
+        for (Tuple tuple : result) {
+            Long teamId = tuple.get(team.id);
+            Number sum = tuple.get(member.age.sum());
+            live.put(teamId, new TeamStatisticsDto(teamId, tuple.get(team.name), tuple.get(member.count()),
+                    sum.longValue(), tuple.get(member.age.min()), tuple.get(member.age.max())));
+        }
+
+        List<Long> mismatched = new ArrayList<>();
+        for (TeamAggregate aggregate : aggregates.values()) {
+            TeamStatisticsDto view = aggregate.toDto();
+            TeamStatisticsDto expected = live.remove(view.getTeamId());
+            if (expected == null ? view.getMemberCount() != 0 : !sameAggregate(view, expected)) {
+                mismatched.add(view.getTeamId());
+            }
+        }
+        mismatched.addAll(live.keySet());
+        return mismatched;
+    }
+
+    private static boolean sameAggregate(TeamStatisticsDto a, TeamStatisticsDto b) {
+        return a.getMemberCount() == b.getMemberCount()
+                && a.getAgeSum() == b.getAgeSum()
+                && Objects.equals(a.getAgeMin(), b.getAgeMin())
+                && Objects.equals(a.getAgeMax(), b.getAgeMax());
+    }
+
+    /**
+     * 팀 하나의 집계
+     * min/max 는 삭제시 재계산이 필요하므로 나이별 인원수(age -> count)로 유지
+     */
+    private static class TeamAggregate {
+        private final Long teamId;
+        private final TreeMap<Integer, Long> ages = new TreeMap<>();
+        private String name;
+        private long count;
+        private long sum;
+
+        TeamAggregate(Long teamId) {
+            this.teamId = teamId;
+        }
+
+        synchronized void rename(String name) {
+            this.name = name;
+        }
+
+        synchronized void add(int age) {
+            add(age, 1);
+        }
+
+        synchronized void add(int age, long n) {
+            ages.merge(age, n, Long::sum);
+            count += n;
+            sum += (long) age * n;
+        }
+
+        synchronized void remove(int age) {
+            Long n = ages.get(age);
+            if (n == null) {
+                return;
+            }
+            if (n == 1) {
+                ages.remove(age);
+            } else {
+                ages.put(age, n - 1);
+            }
+            count--;
+            sum -= age;
+        }
+
+        synchronized TeamStatisticsDto toDto() {
+            return new TeamStatisticsDto(teamId, name, count, sum,
+                    ages.isEmpty() ? null : ages.firstKey(),
+                    ages.isEmpty() ? null : ages.lastKey());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+-- fast 프로파일 스키마 (ddl-auto 대신 사용, 여러 번 실행해도 안전)
+-- 엔티티 매핑 변경 시 같이 수정 > FastStartTest 가 ddl-auto=validate 로 검증
+create sequence if not exists hibernate_sequence start with 1 increment by 1;
+
+create table if not exists hello (
+    id bigint not null,
+    primary key (id)
+);
+
+create table if not exists team (
+    team_id bigint not null,
+    name varchar(255),
+    version bigint default 0 not null,
+    primary key (team_id)
+);
+
+create table if not exists member (
+    member_id bigint not null,
+    age integer not null,
+    username varchar(255),
+    team_id bigint,
+    version bigint default 0 not null,
+    primary key (member_id),
+    constraint fk_member_team foreign key (team_id) references team
+);
+
+-- version 컬럼 이전에 만들어진 스키마
+alter table team add column if not exists version bigint default 0 not null;
+alter table member add column if not exists version bigint default 0 not null;
+
+create index if not exists idx_member_username on member (username);
+create index if not exists idx_member_age on member (age);
+
+-- member/team 데이터 버전 (DataVersion), 쓰기 트랜잭션마다 커밋 후 next value
+create sequence if not exists data_version_seq start with 1 increment by 1;
@@ -0,0 +1,40 @@
+package study.querydsl;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+class DataSourcePoolTest {
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    public void poolConfig() throws Exception{
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+
+        assertThat(hikari.getPoolName()).isEqualTo("querydsl-pool");
+        assertThat(hikari.getMaximumPoolSize()).isEqualTo(10);
+        assertThat(hikari.getDataSourceProperties()).containsEntry("QUERY_CACHE_SIZE", "64");
+    }
+
+    /**
+     * 풀 포화 메트릭
+     * active, idle, pending, acquire
+     */
+    @Test
+    public void poolMetrics() throws Exception{
+        assertThat(meterRegistry.find("hikaricp.connections.active").tag("pool", "querydsl-pool").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.idle").tag("pool", "querydsl-pool").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.pending").tag("pool", "querydsl-pool").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.acquire").tag("pool", "querydsl-pool").timer()).isNotNull();
+    }
+}
@@ -0,0 +1,196 @@
+package study.querydsl.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.ChangeEventPublisher;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = "member.cache.enabled=true")
+class MemberQueryCacheTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MemberQueryCache memberQueryCache;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    ChangeEventPublisher changeEventPublisher;
+    @Autowired
+    DataSource dataSource;
+
+    TransactionTemplate tx;
+    Long teamAId;
+    Long teamBId;
+    Long member1Id;
+    Long member2Id;
+    Long member3Id;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("cacheTeamA");
+            Team teamB = new Team("cacheTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member1 = new Member("cacheMember1", 10, teamA);
+            Member member2 = new Member("cacheMember2", 20, teamB);
+            Member member3 = new Member("cacheMember3", 30);
+            em.persist(member1);
+            em.persist(member2);
+            em.persist(member3);
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+            member1Id = member1.getId();
+            member2Id = member2.getId();
+            member3Id = member3.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            for (Long id : List.of(member1Id, member2Id, member3Id)) {
+                em.remove(em.find(Member.class, id));
+            }
+            em.remove(em.find(Team.class, teamAId));
+            em.remove(em.find(Team.class, teamBId));
+        });
+        assertThat(memberQueryCache.findByUsername("cacheMember1")).isEmpty();
+    }
+
+    @Test
+    public void findById() throws Exception{
+        MemberTeamDto dto = memberQueryCache.findById(member1Id).get();
+
+        assertThat(dto).extracting("username", "age", "teamId", "name")
+                .containsExactly("cacheMember1", 10, teamAId, "cacheTeamA");
+        assertThat(memberQueryCache.findById(member3Id).get().getTeamId()).isNull();
+    }
+
+    @Test
+    public void search() throws Exception{
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameStartsWith("cacheMember");
+        condition.setAgeGoe(15);
+
+        assertThat(memberQueryCache.search(condition)).extracting("username")
+                .containsExactly("cacheMember2", "cacheMember3");
+
+        condition.setTeamName("cacheTeamB");
+        List<MemberTeamDto> cached = memberQueryCache.search(condition);
+        assertThat(cached).extracting("username").containsExactly("cacheMember2");
+        assertThat(cached).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(memberRepository.search(condition));
+    }
+
+    @Test
+    public void refreshAfterCommit() throws Exception{
+        tx.executeWithoutResult(status -> {
+            Member member1 = em.find(Member.class, member1Id);
+            member1.setAge(50);
+            member1.changeTeam(em.find(Team.class, teamBId));
+        });
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("cacheTeamB");
+        assertThat(memberQueryCache.search(condition)).extracting("username", "age")
+                .containsExactly(tuple("cacheMember1", 50), tuple("cacheMember2", 20));
+    }
+
+    @Test
+    public void rollbackNotApplied() throws Exception{
+        tx.executeWithoutResult(status -> {
+            em.find(Member.class, member1Id).setUsername("rollback");
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(memberQueryCache.findByUsername("cacheMember1")).extracting("memberId").containsExactly(member1Id);
+        assertThat(memberQueryCache.findByUsername("rollback")).isEmpty();
+    }
+
+    @Test
+    public void jpaRepositoryLookups() throws Exception{
+        assertThat(memberJpaRepository.findDtoById(member1Id)).get()
+                .extracting("username", "name").containsExactly("cacheMember1", "cacheTeamA");
+        assertThat(memberJpaRepository.findDtosByUsername("cacheMember2")).extracting("memberId").containsExactly(member2Id);
+
+//        캐시에 없는 회원은 DB 조회 X (다른 컨텍스트의 쓰기로 버전이 앞서 있으면 재적재까지 대기)
+        awaitComplete();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            assertThat(memberJpaRepository.findById(-1L)).isEmpty();
+            assertThat(memberJpaRepository.findByUsername("cacheNobody")).isEmpty();
+            assertThat(memberJpaRepository.findByUsername_Querydsl("cacheNobody")).isEmpty();
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(0);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+        assertThat(memberJpaRepository.findById(member1Id)).get().extracting("username").isEqualTo("cacheMember1");
+    }
+
+//    벌크연산 후 백그라운드 재적재 중에도 이전 스냅샷으로 응답
+    @Test
+    public void bulkReloadKeepsSnapshot() throws Exception{
+        tx.executeWithoutResult(status -> changeEventPublisher.bulkChanged(Member.class));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameStartsWith("cacheMember");
+        assertThat(memberQueryCache.isLoaded()).isTrue();
+        assertThat(memberQueryCache.search(condition)).hasSize(3);
+
+        awaitComplete();
+        assertThat(memberQueryCache.search(condition)).hasSize(3);
+    }
+
+//    다른 인스턴스, 직접 SQL 등 ChangeBatch 없이 DataVersion 만 올린 쓰기 > 캐시에 없어도 DB 조회
+    @Test
+    public void writtenElsewhereNotHidden() throws Exception{
+        awaitComplete();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Long id = jdbcTemplate.queryForObject("select next value for hibernate_sequence", Long.class);
+        jdbcTemplate.update("insert into member (member_id, age, username, version) values (?, 10, 'cacheOutsideMember', 0)", id);
+        jdbcTemplate.queryForObject("select next value for data_version_seq", Long.class);
+        try {
+            assertThat(memberQueryCache.isComplete()).isFalse();
+            assertThat(memberJpaRepository.findById(id)).isPresent();
+            assertThat(memberJpaRepository.findByUsername("cacheOutsideMember")).hasSize(1);
+        } finally {
+            jdbcTemplate.update("delete from member where member_id = ?", id);
+            jdbcTemplate.queryForObject("select next value for data_version_seq", Long.class);
+        }
+    }
+
+    private void awaitComplete() throws InterruptedException {
+        for (int i = 0; i < 250 && !memberQueryCache.isComplete(); i++) {
+            Thread.sleep(20);
+        }
+        assertThat(memberQueryCache.isComplete()).isTrue();
+    }
+}
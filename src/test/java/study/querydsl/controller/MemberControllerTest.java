@@ -0,0 +1,237 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.hamcrest.Matchers;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerTest {
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    DataSource dataSource;
+
+    TransactionTemplate tx;
+    Long teamId;
+    List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team team = new Team("controllerTeam");
+            em.persist(team);
+            teamId = team.getId();
+            for (int i = 0; i < 3; i++) {
+                Member member = new Member("controllerMember" + i, 20 + i, i < 2 ? team : null);
+                em.persist(member);
+                memberIds.add(member.getId());
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            memberIds.forEach(id -> em.remove(em.find(Member.class, id)));
+            em.remove(em.find(Team.class, teamId));
+        });
+    }
+
+//    기존 엔드포인트의 application/json 은 Jackson 기본 형태 그대로
+    @Test
+    public void pageJsonUnchanged() throws Exception{
+        mockMvc.perform(get("/v3/members")
+                        .param("usernameStartsWith", "controllerMember")
+                        .param("size", "2")
+                        .param("sort", "id")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].username").value("controllerMember0"))
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.pageable.pageSize").value(2))
+                .andExpect(jsonPath("$.page").doesNotExist());
+    }
+
+//    전용 미디어 타입 > 고정 스키마, /v5 는 Accept 가 없어도 고정 스키마
+    @Test
+    public void compactJson() throws Exception{
+        mockMvc.perform(get("/v5/members")
+                        .param("usernameStartsWith", "controllerMember")
+                        .param("size", "2")
+                        .param("sort", "id"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MemberPageHttpMessageConverter.JSON))
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].username").value("controllerMember0"))
+                .andExpect(jsonPath("$.content[0].teamId").value(teamId))
+                .andExpect(jsonPath("$.content[0].name").value("controllerTeam"))
+                .andExpect(jsonPath("$.page.number").value(0))
+                .andExpect(jsonPath("$.page.size").value(2))
+                .andExpect(jsonPath("$.page.totalElements").value(3))
+                .andExpect(jsonPath("$.page.totalPages").value(2))
+                .andExpect(jsonPath("$.pageable").doesNotExist());
+
+        mockMvc.perform(get("/v2/members")
+                        .param("usernameStartsWith", "controllerMember")
+                        .accept(MemberPageHttpMessageConverter.JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MemberPageHttpMessageConverter.JSON))
+                .andExpect(jsonPath("$.page.totalElements").value(3));
+    }
+
+    @Test
+    public void compactCbor() throws Exception{
+        byte[] body = mockMvc.perform(get("/v5/members")
+                        .param("usernameStartsWith", "controllerMember")
+                        .param("page", "1")
+                        .param("size", "2")
+                        .param("sort", "id")
+                        .accept(MemberPageHttpMessageConverter.CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MemberPageHttpMessageConverter.CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode page = new CBORMapper().readTree(body);
+        assertThat(page.get("content")).hasSize(1);
+        JsonNode member = page.get("content").get(0);
+        assertThat(member.get("memberId").asLong()).isEqualTo(memberIds.get(2));
+        assertThat(member.get("username").asText()).isEqualTo("controllerMember2");
+        assertThat(member.get("age").asInt()).isEqualTo(22);
+        assertThat(member.get("teamId").isNull()).isTrue();
+        assertThat(member.get("name").isNull()).isTrue();
+        assertThat(page.get("page").get("totalElements").asLong()).isEqualTo(3);
+    }
+
+    @Test
+    public void notModified() throws Exception{
+        MvcResult first = mockMvc.perform(get("/v3/members")
+                        .param("usernameStartsWith", "controllerMember")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            mockMvc.perform(get("/v3/members")
+                            .param("usernameStartsWith", "controllerMember")
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().bytes(new byte[0]));
+//            304 는 검색 쿼리 X (버전 행 조회만, JDBC 직접)
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(0);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+
+//        같은 URL 의 다른 표현(CBOR)은 다른 ETag
+        mockMvc.perform(get("/v3/members")
+                        .param("usernameStartsWith", "controllerMember")
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+//        커밋된 변경 후에는 다시 조회
+        tx.executeWithoutResult(status -> em.find(Member.class, memberIds.get(0)).setAge(30));
+        mockMvc.perform(get("/v3/members")
+                        .param("usernameStartsWith", "controllerMember")
+                        .param("sort", "id")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, Matchers.not(etag)))
+                .andExpect(jsonPath("$.content[0].age").value(30));
+    }
+
+//    다른 인스턴스/직접 SQL 의 쓰기도 data_version_seq 를 올림
+    @Test
+    public void versionBumpedElsewhere() throws Exception{
+        String etag = mockMvc.perform(get("/v2/members").accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        new JdbcTemplate(dataSource).queryForObject("select next value for data_version_seq", Long.class);
+
+        mockMvc.perform(get("/v2/members").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void rolledBackChangeKeepsVersion() throws Exception{
+        String etag = mockMvc.perform(get("/v2/members").accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        tx.executeWithoutResult(status -> {
+            em.find(Member.class, memberIds.get(0)).setAge(99);
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        mockMvc.perform(get("/v2/members").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void compactSmile() throws Exception{
+        byte[] body = mockMvc.perform(get("/v5/members")
+                        .param("usernameStartsWith", "controllerMember")
+                        .accept(MemberPageHttpMessageConverter.SMILE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode page = new SmileMapper().readTree(body);
+        assertThat(page.get("content")).hasSize(3);
+        assertThat(page.get("page").get("totalElements").asLong()).isEqualTo(3);
+    }
+
+//    Page 가 아닌 응답은 기존 Jackson 변환기
+    @Test
+    public void listUnchanged() throws Exception{
+        mockMvc.perform(get("/v1/members")
+                        .param("usernameStartsWith", "controllerMember")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)));
+    }
+}
@@ -0,0 +1,103 @@
+package study.querydsl.entity;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * BatchSize
+ * 지연로딩 컬렉션/프록시를 in 절로 묶어서 초기화 > N+1 대신 1+1
+ */
+@SpringBootTest
+@Transactional
+class TeamTest {
+    @PersistenceContext
+    EntityManager em;
+
+    Statistics statistics;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < 5; i++) {
+            Team team = new Team("batchTeam" + i);
+            em.persist(team);
+            for (int j = 0; j < 3; j++) {
+                em.persist(new Member("member" + i + "_" + j, j, team));
+            }
+        }
+        em.flush();
+        em.clear();
+
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void after() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    public void teamMembersBatchFetch() throws Exception{
+        List<Team> teams = em.createQuery("select t from Team t where t.name like 'batchTeam%'", Team.class)
+                .getResultList();
+
+        for (Team team : teams) {
+            assertThat(team.getMembers()).hasSize(3);
+        }
+
+//        팀 조회 1 + members 컬렉션 batch 조회 1
+        assertThat(teams).hasSize(5);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void memberTeamBatchFetch() throws Exception{
+        List<Member> members = em.createQuery("select m from Member m join m.team t where t.name like 'batchTeam%'", Member.class)
+                .getResultList();
+
+        for (Member member : members) {
+            assertThat(member.getTeam().getName()).startsWith("batchTeam");
+        }
+
+//        회원 조회 1 + team 프록시 batch 조회 1
+        assertThat(members).hasSize(15);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    /**
+     * changeTeam
+     * 로딩되지 않은 members 컬렉션은 초기화하지 않음
+     */
+    @Test
+    public void changeTeamWithoutLoadingMembers() throws Exception{
+        Member member = em.createQuery("select m from Member m where m.username = 'member0_0'", Member.class)
+                .getSingleResult();
+        Team newTeam = em.createQuery("select t from Team t where t.name = 'batchTeam1'", Team.class)
+                .getSingleResult();
+        Team oldTeam = member.getTeam();
+
+        member.changeTeam(newTeam);
+
+        assertThat(member.getTeam()).isSameAs(newTeam);
+        assertThat(Hibernate.isInitialized(oldTeam.getMembers())).isFalse();
+        assertThat(Hibernate.isInitialized(newTeam.getMembers())).isFalse();
+
+        em.flush();
+        em.clear();
+        Team reloaded = em.find(Team.class, newTeam.getId());
+        assertThat(reloaded.getMembers()).extracting("username").contains("member0_0");
+    }
+}
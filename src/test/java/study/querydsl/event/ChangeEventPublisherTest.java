@@ -0,0 +1,180 @@
+package study.querydsl.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.cache.MemberQueryCache;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.statistics.TeamStatistics;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 변경 이벤트 파이프라인
+ * 구독자(TeamStatistics, UsernameIndex, MemberQueryCache)는 커밋 후 ChangeBatch 로 갱신
+ */
+@SpringBootTest(properties = "member.cache.enabled=true")
+@RecordApplicationEvents
+class ChangeEventPublisherTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    ApplicationEvents events;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamStatistics teamStatistics;
+    @Autowired
+    MemberQueryCache memberQueryCache;
+    @Autowired
+    DataVersion dataVersion;
+
+    TransactionTemplate tx;
+    Long teamAId;
+    Long teamBId;
+    Long memberId;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("eventTeamA");
+            Team teamB = new Team("eventTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member = new Member("eventMember", 10, teamA);
+            em.persist(member);
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+            memberId = member.getId();
+        });
+        events.clear();
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.remove(em.find(Member.class, memberId));
+            em.remove(em.find(Team.class, teamAId));
+            em.remove(em.find(Team.class, teamBId));
+        });
+    }
+
+    @Test
+    public void coalescePerTransaction() throws Exception{
+        tx.executeWithoutResult(status -> {
+            Member member = em.find(Member.class, memberId);
+            member.setAge(20);
+            em.flush();
+            member.setAge(30);
+            em.flush();
+        });
+
+        List<ChangeBatch> batches = batches();
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0).getDataVersion()).isEqualTo(dataVersion.current());
+        assertThat(batches.get(0).getMemberChanges()).containsExactly(new MemberChange(memberId,
+                new MemberState("eventMember", 10, teamAId),
+                new MemberState("eventMember", 30, teamAId)));
+//        flush 마다 발행되는 즉시 이벤트
+        assertThat(events.stream(MemberChange.class)).hasSize(2);
+    }
+
+    @Test
+    public void insertThenDeleteIsDropped() throws Exception{
+        tx.executeWithoutResult(status -> {
+            Member temp = new Member("eventTemp", 10);
+            em.persist(temp);
+            em.flush();
+            em.remove(temp);
+        });
+
+//        합친 변경은 없음, 버전은 올렸으므로 빈 ChangeBatch 만 발행
+        assertThat(batches()).hasSize(1);
+        assertThat(batches().get(0).getMemberChanges()).isEmpty();
+        assertThat(batches().get(0).getDataVersion()).isPositive();
+    }
+
+    @Test
+    public void rollbackNotPublished() throws Exception{
+        tx.executeWithoutResult(status -> {
+            em.find(Member.class, memberId).setAge(99);
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(batches()).isEmpty();
+        assertThat(teamStatistics.findByTeamId(teamAId).get().getAgeMax()).isEqualTo(10);
+    }
+
+    @Test
+    public void bulkChangeTeamPublished() throws Exception{
+        tx.executeWithoutResult(status -> memberRepository.bulkChangeTeam(List.of(memberId), teamBId));
+
+        List<ChangeBatch> batches = batches();
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0).getMemberChanges()).extracting("after.teamId").containsExactly(teamBId);
+        assertThat(teamStatistics.findByTeamId(teamAId).get().getMemberCount()).isEqualTo(0);
+        assertThat(teamStatistics.findByTeamId(teamBId).get().getMemberCount()).isEqualTo(1);
+        assertThat(memberQueryCache.findById(memberId).get().getTeamId()).isEqualTo(teamBId);
+    }
+
+//    안쪽 REQUIRES_NEW 트랜잭션 변경은 안쪽 커밋 시점에 발행, 바깥 롤백과 무관
+    @Test
+    public void requiresNewPublishedOnInnerCommit() throws Exception{
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        tx.executeWithoutResult(outer -> {
+            em.find(Member.class, memberId).setAge(40);
+            requiresNew.executeWithoutResult(inner -> em.find(Team.class, teamBId).setName("eventTeamB2"));
+
+            assertThat(batches()).hasSize(1);
+            assertThat(batches().get(0).getTeamChanges()).extracting("id").containsExactly(teamBId);
+            assertThat(batches().get(0).getMemberChanges()).isEmpty();
+            outer.setRollbackOnly();
+        });
+
+        assertThat(batches()).hasSize(1);
+        assertThat(teamStatistics.findByTeamId(teamBId).get().getTeamName()).isEqualTo("eventTeamB2");
+        assertThat(teamStatistics.findByTeamId(teamAId).get().getAgeMax()).isEqualTo(10);
+    }
+
+    @Test
+    public void deleteAllByIdInBatchPublished() throws Exception{
+        Long tempId = tx.execute(status -> {
+            Member temp = new Member("eventTemp", 15, em.find(Team.class, teamAId));
+            em.persist(temp);
+            return temp.getId();
+        });
+        events.clear();
+
+        tx.executeWithoutResult(status -> memberRepository.deleteAllByIdInBatch(List.of(tempId)));
+
+        List<ChangeBatch> batches = batches();
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0).getMemberChanges()).containsExactly(new MemberChange(tempId,
+                new MemberState("eventTemp", 15, teamAId), null));
+        assertThat(teamStatistics.findByTeamId(teamAId).get().getMemberCount()).isEqualTo(1);
+        assertThat(memberQueryCache.findById(tempId)).isEmpty();
+    }
+
+    private List<ChangeBatch> batches() {
+        return events.stream(ChangeBatch.class).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,84 @@
+package study.querydsl.export;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * StatelessSession 에서 조회 > 커밋된 데이터로 확인
+ */
+@SpringBootTest
+class MemberExportJobTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MemberExportJob memberExportJob;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void export() throws Exception{
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        List<Long> ids = new ArrayList<>();
+        Long teamId = tx.execute(status -> {
+            Team team = new Team("export,Team");
+            em.persist(team);
+            for (int i = 0; i < 5; i++) {
+                Member member = new Member("exportMember" + i, i, i < 3 ? team : null);
+                em.persist(member);
+                ids.add(member.getId());
+            }
+            return team.getId();
+        });
+
+        try {
+            ExportResult result = memberExportJob.export(dir.resolve("members.csv.gz"));
+
+            List<String> lines = read(result.getFile());
+            assertThat(lines.get(0)).isEqualTo("member_id,username,age,team_id,team_name");
+            assertThat(lines).hasSize((int) result.getRows() + 1);
+            assertThat(lines.stream().filter(line -> line.contains("exportMember")).collect(Collectors.toList()))
+                    .containsExactly(
+                            ids.get(0) + ",exportMember0,0," + teamId + ",\"export,Team\"",
+                            ids.get(1) + ",exportMember1,1," + teamId + ",\"export,Team\"",
+                            ids.get(2) + ",exportMember2,2," + teamId + ",\"export,Team\"",
+                            ids.get(3) + ",exportMember3,3,,",
+                            ids.get(4) + ",exportMember4,4,,");
+            assertThat(result.getPeakHeapBytes()).isPositive();
+            assertThat(Files.exists(dir.resolve("members.csv.gz.part"))).isFalse();
+        } finally {
+            tx.executeWithoutResult(status -> {
+                ids.forEach(id -> em.remove(em.find(Member.class, id)));
+                em.remove(em.find(Team.class, teamId));
+            });
+        }
+    }
+
+    private static List<String> read(Path file) throws Exception {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
@@ -13,6 +13,7 @@ import study.querydsl.entity.Team;
 import javax.persistence.EntityManager;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -76,4 +77,37 @@ class MemberJpaRepositoryTest {
         List<MemberTeamDto> result = memberJpaRepository.search(condition);
         assertThat(result).extracting("username").containsExactly("member4");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void findAllByIds() {
+        Member member1 = new Member("multiMember1", 10);
+        Member member2 = new Member("multiMember2", 20);
+        memberJpaRepository.save(member1);
+        memberJpaRepository.save(member2);
+        em.flush();
+        em.clear();
+
+        Member managed = em.find(Member.class, member1.getId());
+        List<Member> result = memberJpaRepository.findAllByIds(
+                List.of(member2.getId(), -1L, member1.getId(), member2.getId()));
+
+        assertThat(result).extracting(m -> m == null ? null : m.getUsername())
+                .containsExactly("multiMember2", null, "multiMember1", "multiMember2");
+//        영속성 컨텍스트에 있던 엔티티는 그대로 반환
+        assertThat(result.get(2)).isSameAs(managed);
+    }
+
+    @Test
+    public void findAllByUsernames() {
+        memberJpaRepository.save(new Member("multiA", 10));
+        memberJpaRepository.save(new Member("multiB", 20));
+        memberJpaRepository.save(new Member("multiB", 30));
+
+        Map<String, List<Member>> result = memberJpaRepository.findAllByUsernames(List.of("multiB", "multiMissing", "multiA"));
+
+        assertThat(result.keySet()).containsExactly("multiB", "multiMissing", "multiA");
+        assertThat(result.get("multiB")).extracting("age").containsExactlyInAnyOrder(20, 30);
+        assertThat(result.get("multiMissing")).isEmpty();
+        assertThat(result.get("multiA")).extracting("age").containsExactly(10);
+    }
+}
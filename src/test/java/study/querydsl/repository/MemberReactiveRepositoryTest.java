@@ -0,0 +1,145 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.test.StepVerifier;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * member.search.threads=4(@SpringBootTest properties), chunk-size=50(test application.yml)
+ * 조회는 별도 스레드의 트랜잭션에서 실행되므로 데이터는 커밋해서 준비
+ */
+@SpringBootTest(properties = "member.search.threads=4")
+class MemberReactiveRepositoryTest {
+    static final int MEMBER_COUNT = 120;
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MemberReactiveRepository memberReactiveRepository;
+
+    TransactionTemplate tx;
+    MemberSearchCondition condition;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team team = new Team("reactiveTeam");
+            em.persist(team);
+            for (int i = 0; i < MEMBER_COUNT; i++) {
+                em.persist(new Member("reactiveMember" + i, i, team));
+            }
+        });
+        condition = new MemberSearchCondition();
+        condition.setTeamName("reactiveTeam");
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("select m from Member m where m.team.name = 'reactiveTeam'", Member.class)
+                    .getResultList()
+                    .forEach(em::remove);
+            em.createQuery("select t from Team t where t.name = 'reactiveTeam'", Team.class)
+                    .getResultList()
+                    .forEach(em::remove);
+        });
+    }
+
+    @Test
+    public void searchStreamsAllChunks() throws Exception{
+        List<MemberTeamDto> result = memberReactiveRepository.search(condition).collectList().block();
+
+        assertThat(result).hasSize(MEMBER_COUNT);
+        assertThat(result).extracting("memberId").isSortedAccordingTo((a, b) -> ((Long) a).compareTo((Long) b));
+    }
+
+    @Test
+    public void searchBackpressure() throws Exception{
+        AtomicInteger chunks = new AtomicInteger();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        StepVerifier.create(memberReactiveRepository.search(condition)
+                        .doOnNext(dto -> threads.add(Thread.currentThread().getName()))
+                        .doOnNext(dto -> {
+                            if (dto.getAge() % 50 == 0) {
+                                chunks.incrementAndGet();
+                            }
+                        }), 0)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenRequest(10)
+                .expectNextCount(10)
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+//        10건 요청 > 첫 chunk(50건)만 조회
+        assertThat(chunks.get()).isEqualTo(1);
+        assertThat(threads).allMatch(name -> name.startsWith("member-search"));
+    }
+
+    @Test
+    public void manyConcurrentSearchesOnFewThreads() throws Exception{
+        int searches = 200;
+        CountDownLatch latch = new CountDownLatch(searches);
+        AtomicInteger rows = new AtomicInteger();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+//        subscribe 는 조회를 기다리지 않고 바로 반환
+        long start = System.nanoTime();
+        for (int i = 0; i < searches; i++) {
+            memberReactiveRepository.search(condition)
+                    .doOnNext(dto -> {
+                        threads.add(Thread.currentThread().getName());
+                        rows.incrementAndGet();
+                    })
+                    .doFinally(signal -> latch.countDown())
+                    .subscribe();
+        }
+        long subscribeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+//        호출 스레드는 JDBC 조회를 기다리지 않음
+        assertThat(subscribeMillis).isLessThan(1000);
+
+        assertThat(latch.await(60, TimeUnit.SECONDS)).isTrue();
+        assertThat(rows.get()).isEqualTo(searches * MEMBER_COUNT);
+//        동시 검색 200건을 스케줄러 스레드 4개로 처리
+        assertThat(threads).hasSizeLessThanOrEqualTo(4)
+                .allMatch(name -> name.startsWith("member-search"));
+    }
+
+    @Test
+    public void searchPage() throws Exception{
+        PageRequest pageRequest = PageRequest.of(1, 20, Sort.by(Sort.Direction.DESC, "age"));
+
+        Page<MemberTeamDto> result = memberReactiveRepository.searchPage(condition, pageRequest).block();
+
+        assertThat(result.getTotalElements()).isEqualTo(MEMBER_COUNT);
+        assertThat(result.getContent()).hasSize(20);
+        assertThat(result.getContent().get(0).getUsername()).isEqualTo("reactiveMember99");
+    }
+}
@@ -4,8 +4,14 @@ import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
@@ -14,19 +20,30 @@ import study.querydsl.entity.Team;
 
 import javax.persistence.EntityManager;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static study.querydsl.entity.QMember.*;
 
-@SpringBootTest
+@SpringBootTest(properties = "member.paging.deep-offset=10")
 @Transactional
 class MemberRepositoryTest {
     @Autowired
     EntityManager em;
     @Autowired
     MemberRepository memberRepository;
+    @Autowired
+    MemberTestRepository memberTestRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
     
     @Test
     public void basicTest() throws Exception{
@@ -103,6 +120,288 @@ class MemberRepositoryTest {
         assertThat(result).containsExactly(member1);
     }
 
+    @Test
+    public void searchUsernameLike() throws Exception{
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("alice", 10, teamA));
+        em.persist(new Member("malice", 20, teamA));
+        em.persist(new Member("bob", 30, teamA));
+        em.persist(new Member("alicia", 40));
+
+        //when
+        MemberSearchCondition contains = new MemberSearchCondition();
+        contains.setUsernameContains("lic");
+        MemberSearchCondition startsWith = new MemberSearchCondition();
+        startsWith.setUsernameStartsWith("ali");
+        MemberSearchCondition shortKeyword = new MemberSearchCondition();
+        shortKeyword.setUsernameContains("ob");
+
+        //then
+        assertThat(memberRepository.search(contains)).extracting("username")
+                .containsExactlyInAnyOrder("alice", "malice", "alicia");
+        assertThat(memberRepository.search(startsWith)).extracting("username")
+                .containsExactlyInAnyOrder("alice", "alicia");
+        assertThat(memberRepository.search(shortKeyword)).extracting("username")
+                .containsExactly("bob");
+    }
+
+    @Test
+    public void bulkChangeTeam() throws Exception{
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamA);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+
+        //when
+        long count = memberRepository.bulkChangeTeam(List.of(member1.getId(), member2.getId()), teamB.getId());
+
+        //then
+        assertThat(count).isEqualTo(2);
+        assertThat(memberRepository.findById(member1.getId()).get().getTeam().getId()).isEqualTo(teamB.getId());
+        assertThat(memberRepository.findById(member2.getId()).get().getTeam().getId()).isEqualTo(teamB.getId());
+        assertThat(memberRepository.findById(member3.getId()).get().getTeam().getId()).isEqualTo(teamA.getId());
+
+        long removed = memberRepository.bulkChangeTeam(List.of(member3.getId()), null);
+        assertThat(removed).isEqualTo(1);
+        assertThat(memberRepository.findById(member3.getId()).get().getTeam()).isNull();
+    }
+
+    /**
+     * 깊은 페이지(deep-offset=10) > id 범위 조회
+     * /v3(searchPageComplex), /v4(applyPagination2) 모두 offset 조회와 같은 Page
+     */
+    @Test
+    public void adaptivePagination() throws Exception{
+        //given
+        Team team = new Team("pagingTeam");
+        em.persist(team);
+        for (int i = 0; i < 30; i++) {
+            em.persist(new Member("pagingMember" + i, i % 7, team));
+        }
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("pagingTeam");
+        List<MemberTeamDto> all = memberRepository.search(condition);
+
+        //when
+        PageRequest deepById = PageRequest.of(3, 5, Sort.by(Sort.Direction.DESC, "id"));
+        PageRequest deepUnsorted = PageRequest.of(5, 5);
+        PageRequest deepByAge = PageRequest.of(2, 5, Sort.by("age", "id"));
+
+        //then
+        for (Page<MemberTeamDto> page : List.of(memberRepository.searchPageComplex(condition, deepById),
+                memberTestRepository.applyPagination2(condition, deepById))) {
+            assertThat(page.getTotalElements()).isEqualTo(30);
+            assertThat(page.getContent()).extracting("username")
+                    .containsExactly("pagingMember14", "pagingMember13", "pagingMember12", "pagingMember11", "pagingMember10");
+        }
+        for (Page<MemberTeamDto> page : List.of(memberRepository.searchPageComplex(condition, deepUnsorted),
+                memberTestRepository.applyPagination2(condition, deepUnsorted))) {
+            assertThat(page.getContent()).extracting("username")
+                    .containsExactly("pagingMember25", "pagingMember26", "pagingMember27", "pagingMember28", "pagingMember29");
+        }
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(7, 5)).getContent()).isEmpty();
+        List<String> expectedByAge = all.stream()
+                .sorted(Comparator.comparing(MemberTeamDto::getAge).thenComparing(MemberTeamDto::getMemberId))
+                .skip(10).limit(5).map(MemberTeamDto::getUsername).collect(Collectors.toList());
+        for (Page<MemberTeamDto> page : List.of(memberRepository.searchPageComplex(condition, deepByAge),
+                memberTestRepository.applyPagination2(condition, deepByAge))) {
+            assertThat(page.getTotalElements()).isEqualTo(30);
+            assertThat(page.getContent()).extracting("username").containsExactlyElementsOf(expectedByAge);
+            assertThat(page.getContent()).extracting("name").containsOnly("pagingTeam");
+        }
+    }
+
+    /**
+     * deferred join (/v4 applyPagination2)
+     * 팀 조건이 없으면 id 페이지 조회는 member 만 조회
+     */
+    @Test
+    public void deferredJoinPagination() throws Exception{
+        //given
+        Team team = new Team("deferredTeam");
+        em.persist(team);
+        for (int i = 0; i < 20; i++) {
+            em.persist(new Member("deferredMember" + i, 100 + i, i % 2 == 0 ? team : null));
+        }
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameStartsWith("deferredMember");
+        condition.setAgeGoe(104);
+
+        //when
+        Page<MemberTeamDto> shallow = memberTestRepository.applyPagination2(condition, PageRequest.of(0, 4, Sort.by(Sort.Direction.DESC, "age")));
+        Page<MemberTeamDto> deep = memberTestRepository.applyPagination2(condition, PageRequest.of(3, 4, Sort.by(Sort.Direction.DESC, "age")));
+
+        //then
+        assertThat(shallow.getTotalElements()).isEqualTo(16);
+        assertThat(shallow.getContent()).extracting("age").containsExactly(119, 118, 117, 116);
+        assertThat(deep.getTotalElements()).isEqualTo(16);
+        assertThat(deep.getContent()).extracting("username", "name").containsExactly(
+                tuple("deferredMember7", null),
+                tuple("deferredMember6", "deferredTeam"),
+                tuple("deferredMember5", null),
+                tuple("deferredMember4", "deferredTeam"));
+    }
+
+    /**
+     * 배치 검색
+     * username 조건은 합쳐서 1번 조회, 나머지는 워커 트랜잭션에서 병렬 조회 > 커밋된 데이터로 확인
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void searchAll() throws Exception{
+        //given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        List<Long> ids = new ArrayList<>();
+        Long teamId = tx.execute(status -> {
+            Team team = new Team("batchTeam");
+            em.persist(team);
+            for (int i = 0; i < 10; i++) {
+                Member member = new Member("batchMember" + i, 10 + i, i < 5 ? team : null);
+                em.persist(member);
+                ids.add(member.getId());
+            }
+            return team.getId();
+        });
+
+        List<MemberSearchCondition> conditions = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            MemberSearchCondition byUsername = new MemberSearchCondition();
+            byUsername.setUsername("batchMember" + i);
+            conditions.add(byUsername);
+        }
+        MemberSearchCondition missing = new MemberSearchCondition();
+        missing.setUsername("batchMissing");
+        conditions.add(missing);
+        MemberSearchCondition inTeam = new MemberSearchCondition();
+        inTeam.setUsername("batchMember7");
+        inTeam.setTeamName("batchTeam");
+        conditions.add(inTeam);
+        MemberSearchCondition byAge = new MemberSearchCondition();
+        byAge.setUsernameStartsWith("batchMember");
+        byAge.setAgeGoe(17);
+        conditions.add(byAge);
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamName("batchTeam");
+        byTeam.setAgeLoe(11);
+        conditions.add(byTeam);
+        conditions.add(conditions.get(0));
+
+        try {
+            //when
+            Map<MemberSearchCondition, List<MemberTeamDto>> result = memberRepository.searchAll(conditions);
+
+            //then
+            assertThat(result).hasSize(8);
+            assertThat(result.keySet()).containsExactlyElementsOf(conditions.subList(0, 8));
+            for (int i = 0; i < 4; i++) {
+                assertThat(result.get(conditions.get(i))).extracting("username").containsExactly("batchMember" + i);
+            }
+            assertThat(result.get(missing)).isEmpty();
+            assertThat(result.get(inTeam)).isEmpty();
+            assertThat(result.get(byAge)).extracting("username")
+                    .containsExactlyInAnyOrder("batchMember7", "batchMember8", "batchMember9");
+            assertThat(result.get(byTeam)).extracting("username")
+                    .containsExactlyInAnyOrder("batchMember0", "batchMember1");
+            for (MemberSearchCondition condition : conditions) {
+                assertThat(result.get(condition)).containsExactlyInAnyOrderElementsOf(memberRepository.search(condition));
+            }
+        } finally {
+            tx.executeWithoutResult(status -> {
+                ids.forEach(id -> em.remove(em.find(Member.class, id)));
+                em.remove(em.find(Team.class, teamId));
+            });
+        }
+    }
+
+    /**
+     * 동시 incrementAge > 문장 하나로 증가하므로 유실 없음
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void incrementAgeConcurrently() throws Exception{
+        //given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        List<Long> ids = tx.execute(status -> {
+            Member member1 = new Member("incrementMember1", 10);
+            Member member2 = new Member("incrementMember2", 20);
+            em.persist(member1);
+            em.persist(member2);
+            return List.of(member1.getId(), member2.getId());
+        });
+
+        try {
+            //when
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(executor.submit(() -> memberRepository.incrementAge(ids)));
+            }
+            for (Future<Long> future : futures) {
+                assertThat(future.get()).isEqualTo(2);
+            }
+            executor.shutdown();
+
+            //then
+            List<Member> members = tx.execute(status -> memberRepository.findAllById(ids));
+            assertThat(members).extracting("age").containsExactlyInAnyOrder(30, 40);
+            assertThat(members).extracting("version").containsOnly(20L);
+        } finally {
+            tx.executeWithoutResult(status -> ids.forEach(id -> em.remove(em.find(Member.class, id))));
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void changeTeamWithRetry() throws Exception{
+        //given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        List<Long> ids = tx.execute(status -> {
+            Team team = new Team("retryTeam");
+            em.persist(team);
+            Member member = new Member("retryTeamMember", 10);
+            em.persist(member);
+            return List.of(team.getId(), member.getId());
+        });
+        Long teamId = ids.get(0);
+        Long memberId = ids.get(1);
+
+        try {
+            //when
+            assertThat(memberRepository.changeTeam(memberId, teamId)).isTrue();
+            assertThat(memberRepository.changeTeam(-1L, teamId)).isFalse();
+
+            //then
+            tx.executeWithoutResult(status -> {
+                Member member = em.find(Member.class, memberId);
+                assertThat(member.getTeam().getId()).isEqualTo(teamId);
+                assertThat(member.getVersion()).isEqualTo(1);
+//                회원 팀 이동은 팀 version 을 올리지 않음
+                assertThat(em.find(Team.class, teamId).getVersion()).isEqualTo(0);
+            });
+        } finally {
+            tx.executeWithoutResult(status -> {
+                em.remove(em.find(Member.class, memberId));
+                em.remove(em.find(Team.class, teamId));
+            });
+        }
+    }
+
     @Test
     public void test() throws Exception{
         //given
@@ -0,0 +1,90 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberSqlRepositoryTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberSqlRepository memberSqlRepository;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+//        SQL 조회는 영속성 컨텍스트를 거치지 않으므로 flush 필요
+        em.flush();
+    }
+
+    @Test
+    public void searchTest() throws Exception{
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(35);
+        condition.setAgeLoe(40);
+        condition.setTeamName("teamB");
+
+        List<MemberTeamDto> result = memberSqlRepository.search(condition);
+
+        assertThat(result).extracting("username").containsExactly("member4");
+        assertThat(result).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(memberRepository.search(condition));
+    }
+
+    @Test
+    public void searchLeftJoinTest() throws Exception{
+        List<MemberTeamDto> result = memberSqlRepository.search(new MemberSearchCondition());
+
+        assertThat(result).hasSize(5);
+        assertThat(result).filteredOn(dto -> dto.getTeamId() == null)
+                .extracting("username").containsExactly("member5");
+    }
+
+    @Test
+    public void searchPageComplexTest() throws Exception{
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "age"));
+
+        Page<MemberTeamDto> result = memberSqlRepository.searchPageComplex(condition, pageRequest);
+
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getContent()).extracting("username").containsExactly("member5", "member4", "member3");
+    }
+
+//    JPA searchPageComplex 와 같은 정렬 속성(team.name) 지원, 팀 없는 회원은 내림차순에서 뒤
+    @Test
+    public void searchPageComplexSortByTeamName() throws Exception{
+        PageRequest pageRequest = PageRequest.of(0, 5, Sort.by(Sort.Order.desc("team.name"), Sort.Order.asc("age")));
+
+        Page<MemberTeamDto> result = memberSqlRepository.searchPageComplex(new MemberSearchCondition(), pageRequest);
+
+        assertThat(result.getContent()).extracting("username")
+                .containsExactly("member3", "member4", "member1", "member2", "member5");
+    }
+}
@@ -0,0 +1,129 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.TeamStatisticsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.DataVersion;
+import study.querydsl.statistics.TeamStatistics;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * StatelessSession 은 자체 트랜잭션에서 커밋 > 테스트 데이터는 직접 삭제
+ */
+@SpringBootTest
+class MemberStatelessRepositoryTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MemberStatelessRepository memberStatelessRepository;
+    @Autowired
+    TeamStatistics teamStatistics;
+    @Autowired
+    DataVersion dataVersion;
+
+    Team statelessTeam;
+    List<Member> members = new ArrayList<>();
+
+    @AfterEach
+    public void after() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            members.forEach(m -> em.remove(em.find(Member.class, m.getId())));
+            em.remove(em.find(Team.class, statelessTeam.getId()));
+        });
+    }
+
+    @Test
+    public void insertUpdateScroll() throws Exception{
+        //given
+        statelessTeam = new Team("statelessTeam");
+        List<Object> entities = new ArrayList<>(List.of(statelessTeam));
+        for (int i = 0; i < 1200; i++) {
+            Member m = new Member("statelessMember" + i, i % 50);
+            m.setTeam(statelessTeam);
+            members.add(m);
+            entities.add(m);
+        }
+
+        //when
+        assertThat(memberStatelessRepository.insertAll(entities)).isEqualTo(1201);
+        members.get(0).setUsername("statelessRenamed");
+        memberStatelessRepository.updateAll(List.of(members.get(0)));
+        long aged = memberStatelessRepository.update(member, clause -> clause
+                .set(member.age, member.age.add(100))
+                .where(member.team.id.eq(statelessTeam.getId()), member.age.lt(10)));
+
+        //then
+        assertThat(members).allMatch(m -> m.getId() != null);
+        assertThat(aged).isEqualTo(240);
+        List<MemberTeamDto> rows = new ArrayList<>();
+        long count = memberStatelessRepository.scroll(query -> query
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .join(member.team, team)
+                .where(team.id.eq(statelessTeam.getId()))
+                .orderBy(member.id.asc()), rows::add);
+        assertThat(count).isEqualTo(1200);
+        assertThat(rows.get(0).getUsername()).isEqualTo("statelessRenamed");
+        assertThat(rows.get(0).getAge()).isEqualTo(100);
+        assertThat(rows).extracting("name").containsOnly("statelessTeam");
+
+        List<Member> entitiesRead = new ArrayList<>();
+        memberStatelessRepository.scroll(query -> query
+                .select(member)
+                .from(member)
+                .where(member.username.eq("statelessMember1")), entitiesRead::add);
+        assertThat(entitiesRead).extracting("age").containsExactly(101);
+//        update 절은 version 을 항상 + 1
+        assertThat(entitiesRead).extracting("version").containsExactly(members.get(1).getVersion() + 1);
+
+//        엔티티 이벤트 대신 bulkChanged > 통계 백그라운드 재구성
+        Long teamId = statelessTeam.getId();
+        awaitUntil(() -> teamStatistics.findByTeamId(teamId).map(TeamStatisticsDto::getMemberCount).orElse(0L) == 1200);
+    }
+
+//    자체 트랜잭션에서 커밋 > 호출측 트랜잭션이 롤백해도 DataVersion/통계 반영
+    @Test
+    public void publishedWhenCallerRollsBack() throws Exception{
+        statelessTeam = new Team("statelessRollbackTeam");
+        Member m = new Member("statelessRollbackMember", 10);
+        m.setTeam(statelessTeam);
+        members.add(m);
+        long before = dataVersion.current();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            memberStatelessRepository.insertAll(List.of(statelessTeam, m));
+            status.setRollbackOnly();
+        });
+
+        assertThat(dataVersion.current()).isGreaterThan(before);
+        Long teamId = statelessTeam.getId();
+        awaitUntil(() -> teamStatistics.findByTeamId(teamId).map(TeamStatisticsDto::getMemberCount).orElse(0L) == 1);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+class AdaptivePagingTest {
+    @Autowired
+    AdaptivePaging adaptivePaging;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    EntityManager em;
+
+//    ID_RANGE 시작 id 조회는 루트 + where, where 가 참조하지 않는 조인/프로젝션은 제외
+    @Test
+    public void whereOnlyDropsUnusedJoins() throws Exception{
+        JPAQuery<MemberTeamDto> query = queryFactory
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.age.goe(10));
+
+        String jpql = adaptivePaging.whereOnly(query).select(member.id).toString();
+
+        assertThat(jpql).doesNotContainIgnoringCase("join").contains("member1.age >= ?1");
+    }
+
+    @Test
+    public void whereOnlyKeepsReferencedJoins() throws Exception{
+        JPAQuery<MemberTeamDto> query = queryFactory
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(team.name.eq("teamA"));
+
+        String jpql = adaptivePaging.whereOnly(query).select(member.id).toString();
+
+        assertThat(jpql).contains("left join member1.team as team").contains("team.name = ?1");
+    }
+
+//    inner join 은 팀 없는 회원을 걸러냄 > 시작 id 조회에서 빠지면 offset 이 다른 행 집합을 세어 페이지가 어긋남
+    @Test
+    @Transactional
+    public void idRangeKeepsFilteringInnerJoin() throws Exception{
+        Team teamA = new Team("pagingInnerTeam");
+        em.persist(teamA);
+        for (int i = 0; i < 6; i++) {
+            em.persist(new Member("pagingInner" + i, i, i % 2 == 0 ? teamA : null));
+        }
+        em.flush();
+        em.clear();
+
+        JPAQuery<String> query = queryFactory
+                .select(member.username)
+                .from(member)
+                .join(member.team, team)
+                .where(member.username.startsWith("pagingInner"));
+
+        assertThat(adaptivePaging.whereOnly(query).select(member.id).toString()).contains("inner join member1.team as team");
+        List<String> page = adaptivePaging.fetchByIdRange(query,
+                Expressions.comparablePath(Long.class, member, "id"), PageRequest.of(1, 2));
+        assertThat(page).containsExactly("pagingInner4");
+    }
+
+//    컬렉션 조인은 행을 늘리므로 where 가 참조하지 않아도 유지
+    @Test
+    public void whereOnlyKeepsCollectionJoins() throws Exception{
+        JPAQuery<String> query = queryFactory
+                .select(team.name)
+                .from(team)
+                .leftJoin(team.members, member)
+                .where(team.name.eq("teamA"));
+
+        String jpql = adaptivePaging.whereOnly(query).select(team.id).toString();
+
+        assertThat(jpql).contains("left join team.members as member1");
+    }
+}
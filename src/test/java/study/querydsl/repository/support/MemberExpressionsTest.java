@@ -0,0 +1,60 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.sql.SMember;
+import study.querydsl.sql.STeam;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class MemberExpressionsTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+//    매번 만드는 식과 같은 트리(equals) > 같은 JPQL/SQL
+    @Test
+    public void sameAsInline() throws Exception{
+        assertThat(MemberExpressions.MEMBER_TEAM_DTO)
+                .isEqualTo(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name));
+        assertThat(MemberExpressions.SQL_MEMBER_TEAM_DTO).isEqualTo(new QMemberTeamDto(
+                SMember.member.id, SMember.member.username, SMember.member.age, STeam.team.id, STeam.team.name));
+        assertThat(queryFactory.select(MemberExpressions.MEMBER_TEAM_DTO).from(member).leftJoin(member.team, team).toString())
+                .isEqualTo(queryFactory.select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                        .from(member).leftJoin(member.team, team).toString());
+    }
+
+    @Test
+    public void select() throws Exception{
+        Team exprTeam = new Team("exprTeam");
+        em.persist(exprTeam);
+        em.persist(new Member("exprMember1", 10, exprTeam));
+        em.persist(new Member("exprMember2", 20));
+
+        List<MemberTeamDto> result = queryFactory
+                .select(MemberExpressions.MEMBER_TEAM_DTO)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.username.startsWith("exprMember"))
+                .orderBy(member.username.asc())
+                .fetch();
+
+        assertThat(result).extracting("username", "age", "name")
+                .containsExactly(tuple("exprMember1", 10, "exprTeam"), tuple("exprMember2", 20, null));
+    }
+}
@@ -0,0 +1,96 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+class OptimisticRetryTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    OptimisticRetry optimisticRetry;
+
+    TransactionTemplate tx;
+    TransactionTemplate newTx;
+    Long memberId;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        newTx = new TransactionTemplate(transactionManager);
+        newTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        memberId = tx.execute(status -> {
+            Member member = new Member("retryMember", 10);
+            em.persist(member);
+            return member.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, memberId)));
+    }
+
+    @Test
+    public void retryOnConflict() throws Exception{
+        AtomicInteger attempts = new AtomicInteger();
+
+        optimisticRetry.execute(() -> {
+            Member member = em.find(Member.class, memberId);
+            if (attempts.incrementAndGet() == 1) {
+//                읽은 뒤 다른 트랜잭션이 먼저 수정 > 커밋 시 충돌
+                concurrentUpdate();
+            }
+            member.setAge(member.getAge() * 2);
+            return null;
+        });
+
+        Member member = tx.execute(status -> em.find(Member.class, memberId));
+        assertThat(attempts.get()).isEqualTo(2);
+//        다른 트랜잭션의 +1 이 유실되지 않음
+        assertThat(member.getAge()).isEqualTo(22);
+        assertThat(member.getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    public void giveUpAfterMaxAttempts() throws Exception{
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> optimisticRetry.execute(() -> {
+            attempts.incrementAndGet();
+            Member member = em.find(Member.class, memberId);
+            concurrentUpdate();
+            member.setAge(0);
+            return null;
+        })).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(attempts.get()).isEqualTo(5);
+    }
+
+    @Test
+    public void insideTransaction() throws Exception{
+        assertThatThrownBy(() -> tx.execute(status -> optimisticRetry.execute(() -> null)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private void concurrentUpdate() {
+        newTx.executeWithoutResult(status -> {
+            Member other = em.find(Member.class, memberId);
+            other.setAge(other.getAge() + 1);
+        });
+    }
+}
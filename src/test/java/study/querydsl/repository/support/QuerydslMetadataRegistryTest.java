@@ -0,0 +1,51 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.OrderSpecifier;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyReferenceException;
+import study.querydsl.entity.Member;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+class QuerydslMetadataRegistryTest {
+    @Autowired
+    QuerydslMetadataRegistry registry;
+
+    @Test
+    public void sharedPerClass() throws Exception{
+        EntityMetadata<Member> metadata = registry.get(Member.class);
+
+        assertThat(registry.get(Member.class)).isSameAs(metadata);
+        assertThat(metadata.getPath()).isEqualTo(member);
+        assertThat(metadata.getIdProperty()).isEqualTo("id");
+        assertThat(metadata.getEntityInformation().getJavaType()).isEqualTo(Member.class);
+    }
+
+    @Test
+    public void orderSpecifiers() throws Exception{
+        EntityMetadata<Member> metadata = registry.get(Member.class);
+
+        OrderSpecifier<?>[] specifiers = metadata.orderSpecifiers(
+                Sort.by(Sort.Order.desc("age").nullsLast(), Sort.Order.asc("team.name").ignoreCase()));
+
+        assertThat(specifiers[0]).isEqualTo(member.age.desc().nullsLast());
+        assertThat(specifiers[1]).isEqualTo(member.team.name.lower().asc());
+//        같은 Sort.Order 는 캐시된 OrderSpecifier
+        assertThat(metadata.orderSpecifier(Sort.Order.desc("age").nullsLast())).isSameAs(specifiers[0]);
+//        중첩 속성은 캐시 X
+        assertThat(metadata.orderSpecifier(Sort.Order.asc("team.name").ignoreCase()))
+                .isNotSameAs(specifiers[1])
+                .isEqualTo(specifiers[1]);
+    }
+
+    @Test
+    public void unknownProperty() throws Exception{
+        assertThatThrownBy(() -> registry.get(Member.class).orderSpecifiers(Sort.by("nothing")))
+                .isInstanceOf(PropertyReferenceException.class);
+    }
+}
@@ -0,0 +1,83 @@
+package study.querydsl.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SingleFlightTest {
+    SingleFlight<String, Integer> flight = new SingleFlight<>(new SimpleMeterRegistry(), "test.flight");
+
+    @Test
+    public void coalesceConcurrentRequests() throws Exception{
+        int requests = 20;
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                results.add(executor.submit(() -> flight.execute("key", () -> {
+                    loads.incrementAndGet();
+//                    나머지 요청이 모두 합쳐질 때까지 실행 중 유지
+                    while (flight.getCoalescedCount() < requests - 1) {
+                        Thread.onSpinWait();
+                    }
+                    return 42;
+                })));
+            }
+
+            for (Future<Integer> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(42);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(flight.getExecutedCount()).isEqualTo(1);
+        assertThat(flight.getCoalescedCount()).isEqualTo(requests - 1);
+    }
+
+    @Test
+    public void notCachedAfterCompletion() throws Exception{
+        assertThat(flight.execute("key", () -> 1)).isEqualTo(1);
+        assertThat(flight.execute("key", () -> 2)).isEqualTo(2);
+
+        assertThat(flight.getExecutedCount()).isEqualTo(2);
+        assertThat(flight.getCoalescedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void failureSharedWithCoalescedRequests() throws Exception{
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> follower = executor.submit(() -> {
+//                leader 실행 중에 합류
+                while (flight.getExecutedCount() < 1) {
+                    Thread.onSpinWait();
+                }
+                return flight.execute("key", () -> 0);
+            });
+
+            assertThatThrownBy(() -> flight.execute("key", () -> {
+                while (flight.getCoalescedCount() < 1) {
+                    Thread.onSpinWait();
+                }
+                throw new IllegalStateException("db down");
+            })).isInstanceOf(IllegalStateException.class);
+
+            assertThatThrownBy(() -> follower.get(10, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
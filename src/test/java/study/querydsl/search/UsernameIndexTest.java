@@ -0,0 +1,98 @@
+package study.querydsl.search;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 색인이 DB 를 따라잡지 못했거나 flush 전 변경이 있으면 후보 없음(like 만으로 조회)
+ */
+@SpringBootTest
+class UsernameIndexTest {
+    @Autowired
+    UsernameIndex usernameIndex;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    MemberRepository memberRepository;
+
+    TransactionTemplate tx;
+    List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+//        다른 테스트의 직접 SQL 쓰기 등으로 뒤처진 상태에서 시작하지 않도록
+        usernameIndex.rebuild();
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> memberRepository.deleteAllByIdInBatch(memberIds));
+    }
+
+    @Test
+    public void committedChangeIndexed() throws Exception{
+        Long id = tx.execute(status -> {
+            Member member = new Member("idxCommittedMember", 10);
+            em.persist(member);
+            return member.getId();
+        });
+        memberIds.add(id);
+
+        assertThat(usernameIndex.candidates("idxCommitted")).hasValueSatisfying(ids -> assertThat(ids).contains(id));
+    }
+
+//    다른 인스턴스, 직접 SQL 등 ChangeBatch 없이 DataVersion 만 올린 쓰기
+    @Test
+    public void unindexedWriteFallsBackUntilRebuild() throws Exception{
+        Long id = tx.execute(status -> {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            Long next = jdbcTemplate.queryForObject("select next value for hibernate_sequence", Long.class);
+            jdbcTemplate.update("insert into member (member_id, age, username, version) values (?, 10, 'idxOutsideMember', 0)", next);
+            return next;
+        });
+        new JdbcTemplate(dataSource).queryForObject("select next value for data_version_seq", Long.class);
+        memberIds.add(id);
+
+        assertThat(usernameIndex.candidates("idxOutside")).isEmpty();
+
+        usernameIndex.rebuild();
+        assertThat(usernameIndex.candidates("idxOutside")).hasValueSatisfying(ids -> assertThat(ids).contains(id));
+    }
+
+    @Test
+    public void pendingPersistNotFlushed() throws Exception{
+        tx.executeWithoutResult(status -> {
+            Member member = new Member("idxPendingMember", 10);
+            em.persist(member);
+
+            assertThat(usernameIndex.candidates("idxPending")).isEmpty();
+//            후보 조회가 호출측 트랜잭션을 flush 하지 않음
+            assertThat(em.unwrap(Session.class).isDirty()).isTrue();
+
+            em.flush();
+            assertThat(usernameIndex.candidates("idxPending")).hasValueSatisfying(ids -> assertThat(ids).contains(member.getId()));
+            status.setRollbackOnly();
+        });
+    }
+}
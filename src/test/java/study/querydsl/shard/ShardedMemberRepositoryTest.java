@@ -0,0 +1,85 @@
+package study.querydsl.shard;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.sql.SMember.member;
+
+/**
+ * 로컬 H2 메모리 DB 3개를 샤드로 사용
+ */
+@SpringBootTest(properties = {
+        "member.shard.enabled=true",
+        "member.shard.urls=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1"})
+class ShardedMemberRepositoryTest {
+    @Autowired
+    MemberShards shards;
+    @Autowired
+    ShardedMemberRepository shardedMemberRepository;
+
+    @Test
+    public void routeAndMerge() throws Exception{
+        //given
+        List<String> teamNames = List.of("shardTeamA", "shardTeamB", "shardTeamC", "shardTeamD", "shardTeamE");
+        List<Long> teamIds = new ArrayList<>();
+        for (String teamName : teamNames) {
+            teamIds.add(shardedMemberRepository.saveTeam(teamName));
+        }
+        for (int i = 0; i < 60; i++) {
+            shardedMemberRepository.saveMember("shardMember" + i, (i * 7) % 20, i < 55 ? teamIds.get(i % 5) : null);
+        }
+
+        //then
+        assertThat(teamIds.stream().map(shards::shardOfTeam).distinct().count()).isGreaterThan(1);
+//        팀 이름의 샤드 = 팀 id 의 샤드, 회원은 팀 샤드에만 저장
+        for (int i = 0; i < teamNames.size(); i++) {
+            int shard = shards.shardOfTeamName(teamNames.get(i));
+            assertThat(shards.shardOfTeam(teamIds.get(i))).isEqualTo(shard);
+            for (int other = 0; other < shards.size(); other++) {
+                long count = shards.get(other).select(member.count()).from(member)
+                        .where(member.teamId.eq(teamIds.get(i))).fetchOne();
+                assertThat(count).isEqualTo(other == shard ? 11 : 0);
+            }
+        }
+
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamName("shardTeamC");
+        byTeam.setAgeGoe(10);
+        assertThat(shardedMemberRepository.search(byTeam)).extracting("name").containsOnly("shardTeamC");
+
+        MemberSearchCondition all = new MemberSearchCondition();
+        all.setUsernameStartsWith("shardMember");
+        List<MemberTeamDto> expected = shardedMemberRepository.search(all).stream()
+                .sorted(Comparator.comparing(MemberTeamDto::getAge).reversed()
+                        .thenComparing(MemberTeamDto::getUsername)
+                        .thenComparing(MemberTeamDto::getMemberId))
+                .collect(Collectors.toList());
+        assertThat(expected).hasSize(60);
+
+        Sort sort = Sort.by(Sort.Order.desc("age"), Sort.Order.asc("username"));
+        List<MemberTeamDto> paged = new ArrayList<>();
+        for (int page = 0; page < 7; page++) {
+            Page<MemberTeamDto> result = shardedMemberRepository.searchPage(all, PageRequest.of(page, 9, sort));
+            assertThat(result.getTotalElements()).isEqualTo(60);
+            paged.addAll(result.getContent());
+        }
+        assertThat(paged).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(expected);
+
+//        max-offset(10000) 초과
+        assertThatThrownBy(() -> shardedMemberRepository.searchPage(all, PageRequest.of(2000, 9, sort)))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class);
+    }
+}
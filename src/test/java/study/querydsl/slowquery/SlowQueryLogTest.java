@@ -0,0 +1,94 @@
+package study.querydsl.slowquery;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberTestRepository;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 임계값을 0 으로 내려서 모든 쿼리를 느린 쿼리로 수집
+ */
+@SpringBootTest
+@Transactional
+class SlowQueryLogTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    SlowQueryLog slowQueryLog;
+    @Autowired
+    SlowQueryEndpoint slowQueryEndpoint;
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    long threshold;
+
+    @BeforeEach
+    public void before() {
+        Team team = new Team("slowTeam");
+        em.persist(team);
+        for (int i = 0; i < 3; i++) {
+            em.persist(new Member("slowMember" + i, i, team));
+        }
+        em.flush();
+
+        threshold = slowQueryLog.getThresholdMillis();
+        slowQueryLog.clear();
+        slowQueryLog.setThresholdMillis(0);
+    }
+
+    @AfterEach
+    public void after() {
+        slowQueryLog.setThresholdMillis(threshold);
+        slowQueryLog.clear();
+    }
+
+    @Test
+    public void captureSlowQuery() throws Exception{
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("slowTeam");
+        memberTestRepository.applyPagination2(condition, PageRequest.of(0, 2));
+
+        List<SlowQuery> result = slowQueryEndpoint.slowQueries();
+
+//        content 조회(2건) + count 조회(1건)
+        assertThat(result).extracting("origin").containsOnly("MemberTestRepository.applyPagination2");
+        assertThat(result).extracting("rowCount").containsExactlyInAnyOrder(2, 1);
+        SlowQuery content = result.stream().filter(q -> q.getRowCount() == 2).findFirst().get();
+        assertThat(content.getSql()).contains("?");
+        assertThat(content.getSqlWithValues()).contains("'slowTeam'");
+
+//        EXPLAIN 은 비동기
+        for (int i = 0; i < 50 && content.getPlan() == null; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(content.getPlan()).containsIgnoringCase("PUBLIC.MEMBER");
+    }
+
+    @Test
+    public void ringBufferKeepsLatest() throws Exception{
+        slowQueryLog.setThresholdMillis(Long.MAX_VALUE);
+        for (int i = 0; i < 105; i++) {
+            slowQueryLog.add(new SlowQuery(Instant.now(), "test", "update member set age = " + i,
+                    "update member set age = " + i, Map.of(), 0));
+        }
+
+        List<SlowQuery> result = slowQueryLog.findAll();
+        assertThat(result).hasSize(100);
+        assertThat(result.get(0).getSql()).isEqualTo("update member set age = 104");
+        assertThat(result.get(99).getSql()).isEqualTo("update member set age = 5");
+    }
+}
@@ -0,0 +1,86 @@
+package study.querydsl.sqllog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+@ExtendWith(OutputCaptureExtension.class)
+class SqlLogListenerTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    SqlLogEndpoint sqlLogEndpoint;
+    @Autowired
+    SqlLogListener sqlLogListener;
+
+    @BeforeEach
+    public void before() {
+        em.persist(new Member("sqlLogMember", 10));
+        em.flush();
+    }
+
+    @AfterEach
+    public void after() {
+        sqlLogListener.configure(SqlLogMode.OFF, 100, 50, true);
+    }
+
+    @Test
+    public void offByDefault(CapturedOutput output) throws Exception{
+        findByUsername("sqlLogOff");
+
+        assertThat(sqlLogEndpoint.settings()).containsEntry("mode", SqlLogMode.OFF);
+        assertThat(output).doesNotContain("sqlLogOff");
+    }
+
+    @Test
+    public void switchAtRuntime(CapturedOutput output) throws Exception{
+        sqlLogEndpoint.configure(SqlLogMode.ALL, null, 0, false);
+
+        findByUsername("sqlLogAll");
+
+//        바인드 값이 채워진 한 줄
+        assertThat(output).containsPattern("\\d+ms \\| select .*'sqlLogAll'");
+    }
+
+    @Test
+    public void sampled(CapturedOutput output) throws Exception{
+        sqlLogEndpoint.configure(SqlLogMode.SAMPLED, Integer.MAX_VALUE, 0, false);
+
+        for (int i = 0; i < 10; i++) {
+            findByUsername("sqlLogSampled");
+        }
+
+        assertThat(output).doesNotContain("sqlLogSampled");
+    }
+
+    @Test
+    public void rateLimited(CapturedOutput output) throws Exception{
+        sqlLogEndpoint.configure(SqlLogMode.ALL, null, 1, false);
+        long before = (long) sqlLogEndpoint.settings().get("rateLimited");
+
+        findByUsername("sqlLogLimited");
+        findByUsername("sqlLogLimited");
+        findByUsername("sqlLogLimited");
+
+        assertThat((long) sqlLogEndpoint.settings().get("rateLimited") - before).isGreaterThanOrEqualTo(2);
+    }
+
+    private void findByUsername(String username) {
+        em.createQuery("select m from Member m where m.username = :username", Member.class)
+                .setParameter("username", username)
+                .getResultList();
+    }
+}
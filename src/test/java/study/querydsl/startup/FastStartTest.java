@@ -0,0 +1,56 @@
+package study.querydsl.startup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.event.ChangeEventPublisher;
+import study.querydsl.repository.MemberRepository;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * fast 프로파일 기동
+ * db/schema.sql 이 엔티티 매핑과 맞는지 ddl-auto=validate 로 확인
+ * 기동 시간은 클래스 로딩이 끝난 두번째 기동으로 확인(첫 기동은 JVM 클래스 로딩이 대부분)
+ */
+class FastStartTest {
+    @Test
+    public void fastStart() throws Exception{
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(4096);
+
+        try (ConfigurableApplicationContext context = run("faststart", startup)) {
+//            지연 초기화 > 리포지토리는 아직 생성 X, 변경 이벤트 파이프라인은 생성
+            assertThat(context.getBeanFactory().containsSingleton("memberRepository")).isFalse();
+            assertThat(context.getBeanFactory().getSingletonNames())
+                    .anyMatch(name -> context.getBeanFactory().getType(name) == ChangeEventPublisher.class);
+
+            assertThat(context.getBean(MemberRepository.class).count()).isEqualTo(0);
+            assertThat(context.getBean(JdbcTemplate.class).queryForObject(
+                    "select count(*) from information_schema.indexes where index_name = 'IDX_MEMBER_AGE'", Integer.class))
+                    .isPositive();
+            assertThat(startup.getBufferedTimeline().getEvents()).isNotEmpty();
+        }
+
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = run("faststart2", new BufferingApplicationStartup(4096))) {
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(3));
+            assertThat(context.isActive()).isTrue();
+        }
+    }
+
+    private static ConfigurableApplicationContext run(String database, BufferingApplicationStartup startup) {
+        SpringApplication application = new SpringApplication(QuerydslApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        application.setApplicationStartup(startup);
+        return application.run(
+                "--spring.profiles.active=test,fast",
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=validate");
+    }
+}
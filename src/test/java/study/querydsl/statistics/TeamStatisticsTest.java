@@ -0,0 +1,122 @@
+package study.querydsl.statistics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.TeamStatisticsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 집계는 커밋 후 반영되므로 테스트 트랜잭션(롤백) 대신 TransactionTemplate 으로 커밋
+ */
+@SpringBootTest
+class TeamStatisticsTest {
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    TeamStatistics teamStatistics;
+    @Autowired
+    MemberRepository memberRepository;
+
+    TransactionTemplate tx;
+    Long teamAId;
+    Long teamBId;
+    Long member1Id;
+    Long member2Id;
+    Long member3Id;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("statTeamA");
+            Team teamB = new Team("statTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member1 = new Member("statMember1", 10, teamA);
+            Member member2 = new Member("statMember2", 20, teamA);
+            Member member3 = new Member("statMember3", 30, teamB);
+            em.persist(member1);
+            em.persist(member2);
+            em.persist(member3);
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+            member1Id = member1.getId();
+            member2Id = member2.getId();
+            member3Id = member3.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            for (Long id : List.of(member1Id, member2Id, member3Id)) {
+                em.remove(em.find(Member.class, id));
+            }
+            em.remove(em.find(Team.class, teamAId));
+            em.remove(em.find(Team.class, teamBId));
+        });
+        assertThat(teamStatistics.findByTeamId(teamAId)).isEmpty();
+        assertThat(teamStatistics.verify()).isEmpty();
+    }
+
+    @Test
+    public void memberSaved() throws Exception{
+        TeamStatisticsDto teamA = teamStatistics.findByTeamId(teamAId).get();
+
+        assertThat(teamA.getTeamName()).isEqualTo("statTeamA");
+        assertThat(teamA.getMemberCount()).isEqualTo(2);
+        assertThat(teamA.getAgeAvg()).isEqualTo(15);
+        assertThat(teamA.getAgeMin()).isEqualTo(10);
+        assertThat(teamA.getAgeMax()).isEqualTo(20);
+        assertThat(teamStatistics.verify()).isEmpty();
+    }
+
+    @Test
+    public void changeTeam() throws Exception{
+        tx.executeWithoutResult(status ->
+                em.find(Member.class, member1Id).changeTeam(em.find(Team.class, teamBId)));
+
+        assertThat(teamStatistics.findByTeamId(teamAId).get())
+                .extracting("memberCount", "ageMin", "ageMax").containsExactly(1L, 20, 20);
+        assertThat(teamStatistics.findByTeamId(teamBId).get())
+                .extracting("memberCount", "ageMin", "ageMax").containsExactly(2L, 10, 30);
+        assertThat(teamStatistics.verify()).isEmpty();
+    }
+
+    @Test
+    public void bulkChangeTeam() throws Exception{
+        tx.executeWithoutResult(status ->
+                memberRepository.bulkChangeTeam(List.of(member1Id, member2Id), teamBId));
+
+        assertThat(teamStatistics.findByTeamId(teamAId).get().getMemberCount()).isEqualTo(0);
+        assertThat(teamStatistics.findByTeamId(teamBId).get())
+                .extracting("memberCount", "ageSum", "ageMin", "ageMax").containsExactly(3L, 60L, 10, 30);
+        assertThat(teamStatistics.verify()).isEmpty();
+    }
+
+    @Test
+    public void rollbackNotApplied() throws Exception{
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("statMember4", 40, em.find(Team.class, teamAId)));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(teamStatistics.findByTeamId(teamAId).get().getMemberCount()).isEqualTo(2);
+        assertThat(teamStatistics.verify()).isEmpty();
+    }
+}